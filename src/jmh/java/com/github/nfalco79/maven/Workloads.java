@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+
+/**
+ * Synthetic workloads shared by the benchmarks. Workloads are generated with
+ * a fixed seed, so every run measures the same data.
+ */
+public final class Workloads {
+
+    /**
+     * The shape of a generated dependency graph.
+     */
+    public enum Shape {
+        /**
+         * Few levels, each node has 32 children.
+         */
+        WIDE(32, 32),
+        /**
+         * 100 long chains from the root, depth is about nodes / 100.
+         */
+        DEEP(100, 1);
+
+        private final int rootChildren;
+        private final int children;
+
+        Shape(int rootChildren, int children) {
+            this.rootChildren = rootChildren;
+            this.children = children;
+        }
+    }
+
+    private Workloads() {
+    }
+
+    /**
+     * Generates a dependency graph filled breadth first. Nodes reuse
+     * {@code distinctArtifacts} groupId:artifactId in three versions, the same
+     * artifact appears in many subtrees as in a real reactor.
+     *
+     * @param shape
+     *            the shape of the graph
+     * @param nodes
+     *            the number of nodes, root included
+     * @param distinctArtifacts
+     *            the number of distinct groupId:artifactId
+     * @return the root of the graph
+     */
+    public static DependencyNode tree(Shape shape, int nodes, int distinctArtifacts) {
+        DefaultDependencyNode root = node(null, MavenUtils.buildArtifact("org.acme", "root", "1.0"));
+        Deque<DefaultDependencyNode> parents = new ArrayDeque<>();
+        parents.add(root);
+        int count = 1;
+        while (count < nodes) {
+            DefaultDependencyNode parent = parents.poll();
+            int children = parent == root ? shape.rootChildren : shape.children;
+            for (int i = 0; i < children && count < nodes; i++, count++) {
+                DefaultDependencyNode child = node(parent, artifact(count % distinctArtifacts, count % 3));
+                parent.getChildren().add(child);
+                parents.add(child);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Returns all artifacts of a graph in pre-order, root excluded.
+     *
+     * @param root
+     *            the root of the graph
+     * @return the artifacts of the graph
+     */
+    public static List<Artifact> artifacts(DependencyNode root) {
+        List<Artifact> artifacts = new ArrayList<>();
+        Deque<DependencyNode> stack = new ArrayDeque<>(root.getChildren());
+        while (!stack.isEmpty()) {
+            DependencyNode node = stack.pop();
+            artifacts.add(node.getArtifact());
+            node.getChildren().forEach(stack::push);
+        }
+        return artifacts;
+    }
+
+    /**
+     * Generates a set of distinct artifacts spread over 1000 groupIds with a
+     * common prefix of 100 values.
+     *
+     * @param count
+     *            the number of artifacts
+     * @return the artifacts in generation order
+     */
+    public static Set<Artifact> artifacts(int count) {
+        Set<Artifact> artifacts = new LinkedHashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            artifacts.add(artifact(i, 0));
+        }
+        return artifacts;
+    }
+
+    /**
+     * Generates include/exclude patterns matching the artifacts of
+     * {@link #artifacts(int)}: half exact groupId:artifactId, a third groupId
+     * prefixes and the rest artifactId wildcards.
+     *
+     * @param count
+     *            the number of patterns
+     * @param artifacts
+     *            the number of generated artifacts
+     * @param seed
+     *            the seed of the generator
+     * @return the patterns
+     */
+    public static List<String> patterns(int count, int artifacts, long seed) {
+        Random random = new Random(seed);
+        List<String> patterns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = random.nextInt(artifacts);
+            switch (i % 6) {
+            case 0:
+            case 1:
+            case 2:
+                patterns.add(groupId(id) + ":a" + id);
+                break;
+            case 3:
+            case 4:
+                patterns.add(groupId(id) + "*");
+                break;
+            default:
+                patterns.add("*:a" + id);
+            }
+        }
+        return patterns;
+    }
+
+    private static DefaultDependencyNode node(DefaultDependencyNode parent, Artifact artifact) {
+        DefaultDependencyNode node = new DefaultDependencyNode(parent, artifact, null, null, null);
+        node.setChildren(new ArrayList<>());
+        return node;
+    }
+
+    private static Artifact artifact(int id, int version) {
+        return MavenUtils.buildArtifact(groupId(id), "a" + id, "1." + version);
+    }
+
+    private static String groupId(int id) {
+        return "com.acme.g" + (id % 100) + ".m" + (id % 1000);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
+import org.apache.maven.shared.artifact.filter.collection.FilterArtifacts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.nfalco79.maven.Workloads;
+import com.github.nfalco79.maven.artifact.resolver.filter.ArtifactFilterCache;
+
+/**
+ * Measures the include and exclude filters with large pattern sets, alone,
+ * chained and with decisions served from an {@link ArtifactFilterCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArtifactsFilterBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int patterns;
+
+    @Param({ "20000" })
+    private int artifacts;
+
+    private Set<Artifact> artifactSet;
+    private List<String> patternList;
+    private IncludesArtifactFilter includes;
+    private ExcludeArtifactFilter excludes;
+    private MemoizingArtifactsFilter memoizedExcludes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        artifactSet = Workloads.artifacts(artifacts);
+        patternList = Workloads.patterns(patterns, artifacts, 1);
+        includes = new IncludesArtifactFilter(patternList);
+        excludes = new ExcludeArtifactFilter(Workloads.patterns(patterns, artifacts, 2));
+        // the cache holds all decisions of an equal filter, as for the next modules of a reactor
+        ArtifactFilterCache cache = new ArtifactFilterCache(2 * artifacts);
+        artifactSet.forEach(new MemoizingArtifactsFilter(excludes, cache)::include);
+        memoizedExcludes = new MemoizingArtifactsFilter(new ExcludeArtifactFilter(Workloads.patterns(patterns, artifacts, 2)), cache);
+    }
+
+    @Benchmark
+    public Set<Artifact> includes() throws ArtifactFilterException {
+        return includes.filter(artifactSet);
+    }
+
+    @Benchmark
+    public Set<Artifact> excludes() throws ArtifactFilterException {
+        return excludes.filter(artifactSet);
+    }
+
+    @Benchmark
+    public Set<Artifact> memoizedExcludes() throws ArtifactFilterException {
+        return memoizedExcludes.filter(artifactSet);
+    }
+
+    @Benchmark
+    public IncludesArtifactFilter compilePatterns() {
+        return new IncludesArtifactFilter(patternList);
+    }
+
+    @Benchmark
+    public Set<Artifact> chain() throws ArtifactFilterException {
+        return chain(false).filter(artifactSet);
+    }
+
+    @Benchmark
+    public Set<Artifact> fusedChain() throws ArtifactFilterException {
+        return chain(true).filter(artifactSet);
+    }
+
+    private FilterArtifacts chain(boolean fused) {
+        FilterArtifacts filters = new FilterArtifacts();
+        filters.addFilter(includes);
+        filters.addFilter(new OptionalFilter(false));
+        filters.addFilter(excludes);
+        return fused ? FusedArtifactsFilter.fuse(filters) : filters;
+    }
+
+}
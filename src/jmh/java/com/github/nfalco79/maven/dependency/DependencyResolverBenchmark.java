@@ -0,0 +1,154 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.dependency.graph.DependencyGraphBuilderException;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolver;
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.nfalco79.maven.Workloads;
+import com.github.nfalco79.maven.Workloads.Shape;
+import com.github.nfalco79.maven.artifact.resolver.filter.TypeFiler;
+
+/**
+ * Measures a full dependency resolution against a resolver that serves a
+ * local file after a fixed latency, no remote repository is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DependencyResolverBenchmark {
+
+    /**
+     * Serves the same file for each artifact after a fixed latency.
+     */
+    private static class LatencyArtifactResolver implements ArtifactResolver {
+        private final File file;
+        private final long latencyNanos;
+
+        LatencyArtifactResolver(File file, long latencyNanos) {
+            this.file = file;
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public ArtifactResult resolveArtifact(ProjectBuildingRequest buildingRequest, Artifact artifact) {
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+            Artifact resolved = ArtifactUtils.copyArtifact(artifact);
+            resolved.setFile(file);
+            return () -> resolved;
+        }
+
+        @Override
+        public ArtifactResult resolveArtifact(ProjectBuildingRequest buildingRequest, ArtifactCoordinate coordinate) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Param({ "100", "1000" })
+    private int artifacts;
+
+    @Param({ "0", "1", "5" })
+    private int latencyMillis;
+
+    @Param({ "1", "8" })
+    private int resolverThreads;
+
+    @Param({ "false", "true" })
+    private boolean streamingResolution;
+
+    private File artifactFile;
+    private DependencyNode root;
+    private List<Artifact> nodeArtifacts;
+    private DependencyResolver resolver;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        artifactFile = Files.createTempFile("benchmark", ".jar").toFile();
+        FileUtils.writeByteArrayToFile(artifactFile, new byte[4096]);
+        root = Workloads.tree(Shape.WIDE, artifacts + 1, artifacts);
+        nodeArtifacts = Workloads.artifacts(root);
+
+        MavenProject project = new MavenProject();
+        project.setGroupId("org.acme");
+        project.setArtifactId("root");
+        project.setVersion("1.0");
+        MavenSession session = mock(MavenSession.class);
+        when(session.getCurrentProject()).thenReturn(project);
+        when(session.getProjectBuildingRequest()).thenReturn(new DefaultProjectBuildingRequest());
+
+        ArtifactResolver artifactResolver = new LatencyArtifactResolver(artifactFile, TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        resolver = new DependencyResolver(session, project, (request, filter) -> root, new TypeFiler("jar"), new SystemStreamLog(), artifactResolver);
+        resolver.setResolverThreads(resolverThreads);
+        resolver.setStreamingResolution(streamingResolution);
+    }
+
+    @Setup(Level.Invocation)
+    public void coldRepository() {
+        for (Artifact artifact : nodeArtifacts) {
+            artifact.setFile(null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteQuietly(artifactFile);
+    }
+
+    @Benchmark
+    public DependencyNode resolveDependencies() throws DependencyGraphBuilderException {
+        return resolver.resolveDependencies();
+    }
+
+}
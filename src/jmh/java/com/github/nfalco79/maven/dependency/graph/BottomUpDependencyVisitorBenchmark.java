@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.nfalco79.maven.Workloads;
+import com.github.nfalco79.maven.Workloads.Shape;
+
+/**
+ * Measures the collection of the artifacts of a dependency graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BottomUpDependencyVisitorBenchmark {
+
+    @Param({ "WIDE", "DEEP" })
+    private Shape shape;
+
+    @Param({ "1000", "100000", "1000000" })
+    private int nodes;
+
+    @Param({ "500" })
+    private int distinctArtifacts;
+
+    @Param({ "false", "true" })
+    private boolean skipVisitedSubtrees;
+
+    private DependencyNode root;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        root = Workloads.tree(shape, nodes, distinctArtifacts);
+    }
+
+    @Benchmark
+    public Collection<Artifact> visitor() {
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
+        visitor.setSkipVisitedSubtrees(skipVisitedSubtrees);
+        DependencyGraphWalker.walk(root, visitor);
+        return visitor.getNodes();
+    }
+
+    @Benchmark
+    public Collection<Artifact> parallelCollector() {
+        ParallelBottomUpCollector collector = new ParallelBottomUpCollector();
+        collector.setSkipVisitedSubtrees(skipVisitedSubtrees);
+        return collector.collect(root);
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.shared.artifact.filter.collection.AbstractArtifactsFilter;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
+
+/**
+ * Base class of collection filters that decide for each artifact on its own.
+ * <p>
+ * Such filters can be evaluated one artifact at time, so that
+ * {@link FusedArtifactsFilter} runs many of them in a single pass, and can be
+ * used also as {@link ArtifactFilter}.
+ */
+public abstract class AbstractArtifactPredicateFilter extends AbstractArtifactsFilter implements ArtifactFilter {
+
+    /**
+     * Returns if the given artifact passes this filter.
+     *
+     * @param artifact
+     *            to test
+     * @return {@code true} if the artifact is included
+     */
+    @Override
+    public abstract boolean include(Artifact artifact);
+
+    /**
+     * Returns if this filter includes any artifact, in which case filtering
+     * is skipped at all.
+     *
+     * @return {@code true} if all artifacts are included
+     */
+    public boolean isIncludeAll() {
+        return false;
+    }
+
+    /**
+     * Returns the relative cost to evaluate {@link #include(Artifact)}, where
+     * 1 is the cost to test a flag of the artifact. It is used to run cheap
+     * filters first.
+     *
+     * @return the relative cost
+     */
+    public int getCost() {
+        return 1;
+    }
+
+    @Override
+    public Set<Artifact> filter(Set<Artifact> artifacts) throws ArtifactFilterException {
+        if (isIncludeAll()) {
+            return artifacts;
+        }
+        return artifacts.stream().filter(this::include).collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns a live view of the given artifacts that pass this filter,
+     * without copy them.
+     *
+     * @param artifacts
+     *            to filter
+     * @return a filtered view of the artifacts
+     */
+    public FilteredArtifactSet view(Set<Artifact> artifacts) {
+        return new FilteredArtifactSet(artifacts, isIncludeAll() ? a -> true : this::include);
+    }
+
+    @Override
+    public boolean isArtifactIncluded(Artifact artifact) throws ArtifactFilterException {
+        return include(artifact);
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.artifact.filter.PatternIncludesArtifactFilter;
+
+/**
+ * Matches artifacts against a list of patterns with the same semantic of
+ * {@link PatternIncludesArtifactFilter}: the first pattern, in the given
+ * order, that matches the artifact decides, a negative pattern (starting with
+ * {@code !}) means no match.
+ * <p>
+ * Patterns are compiled once. Patterns on an exact groupId or
+ * groupId:artifactId are looked up in hash tables, patterns on a groupId
+ * prefix like {@code org.acme.*} are looked up in a trie, any other pattern is
+ * matched by {@link PatternIncludesArtifactFilter}.
+ */
+class ArtifactPatternMatcher {
+
+    private static final String ANY = "*";
+
+    private static class PrefixNode {
+        private final Map<Character, PrefixNode> children = new HashMap<>();
+        private final List<PrefixEntry> entries = new ArrayList<>(1);
+    }
+
+    private static class PrefixEntry {
+        private final int index;
+        private final String artifactId;
+
+        PrefixEntry(int index, String artifactId) {
+            this.index = index;
+            this.artifactId = artifactId;
+        }
+    }
+
+    private static class FallbackPattern extends PatternIncludesArtifactFilter {
+        private final int index;
+
+        FallbackPattern(int index, String pattern) {
+            super(Collections.singletonList(pattern));
+            this.index = index;
+        }
+
+        boolean matches(Artifact artifact) {
+            return patternMatches(artifact);
+        }
+
+        @Override
+        protected void addFilteredArtifact(Artifact artifact) {
+            // do not collect artifacts, the matcher is used for many artifacts
+        }
+    }
+
+    private final int size;
+    private final boolean[] negatives;
+    private final Map<String, Integer> groups = new HashMap<>();
+    private final Map<String, Integer> groupArtifacts = new HashMap<>();
+    private final PrefixNode prefixes = new PrefixNode();
+    private final List<FallbackPattern> fallbacks = new ArrayList<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param patterns
+     *            the patterns in order of priority
+     */
+    ArtifactPatternMatcher(Collection<String> patterns) {
+        this.size = patterns.size();
+        this.negatives = new boolean[size];
+        int index = 0;
+        for (String pattern : patterns) {
+            String positive = pattern;
+            while (positive.startsWith("!")) {
+                negatives[index] = true;
+                positive = positive.substring(1);
+            }
+            compile(index++, positive);
+        }
+    }
+
+    /**
+     * Returns if there is no pattern.
+     *
+     * @return {@code true} if there is no pattern
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the relative cost to match an artifact, patterns not indexed
+     * are the expensive part.
+     *
+     * @return the relative cost
+     */
+    int getCost() {
+        return 4 + 16 * fallbacks.size();
+    }
+
+    /**
+     * Returns if the first pattern that matches the given artifact is a
+     * positive pattern.
+     *
+     * @param artifact
+     *            to match
+     * @return {@code true} if the artifact matches a positive pattern before
+     *         any negative pattern, {@code false} otherwise
+     */
+    boolean matches(Artifact artifact) {
+        String groupId = artifact.getGroupId();
+        String artifactId = artifact.getArtifactId();
+
+        int first = min(size, groups.get(groupId));
+        if (!groupArtifacts.isEmpty() && groupId != null && artifactId != null) {
+            first = min(first, groupArtifacts.get(groupId + ':' + artifactId));
+        }
+
+        PrefixNode node = prefixes;
+        int i = 0;
+        int length = groupId == null ? 0 : groupId.length();
+        while (node != null) {
+            for (PrefixEntry entry : node.entries) {
+                if (entry.index < first && (entry.artifactId == null || entry.artifactId.equals(artifactId))) {
+                    first = entry.index;
+                }
+            }
+            node = i < length ? node.children.get(groupId.charAt(i++)) : null;
+        }
+
+        for (FallbackPattern fallback : fallbacks) {
+            if (fallback.index >= first) {
+                break;
+            }
+            if (fallback.matches(artifact)) {
+                first = fallback.index;
+                break;
+            }
+        }
+
+        return first < size && !negatives[first];
+    }
+
+    private static int min(int index, Integer other) {
+        return other != null && other < index ? other : index;
+    }
+
+    private void compile(int index, String pattern) {
+        // same tokenization of PatternIncludesArtifactFilter
+        String[] tokens = pattern.split(":");
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].isEmpty()) {
+                tokens[i] = ANY;
+            }
+        }
+
+        String groupId = null;
+        String artifactId = null;
+        if (tokens.length == 1 || (tokens.length == 2 && ANY.equals(tokens[1]))) {
+            groupId = tokens[0]; // G
+        } else if ((tokens.length == 2 || (tokens.length == 3 && ANY.equals(tokens[2]))) && !ANY.equals(tokens[0])) {
+            if (!ANY.equals(tokens[1])) {
+                groupId = tokens[0]; // G:A
+                artifactId = tokens[1];
+            }
+        } else if (tokens.length == 3 && ANY.equals(tokens[0]) && ANY.equals(tokens[1]) && ANY.equals(tokens[2])) {
+            groupId = ANY;
+        }
+
+        if (groupId == null || (artifactId != null && isWildcard(artifactId))) {
+            fallbacks.add(new FallbackPattern(index, pattern));
+        } else if (!isWildcard(groupId)) {
+            if (artifactId == null) {
+                groups.putIfAbsent(groupId, index);
+            } else {
+                groupArtifacts.putIfAbsent(groupId + ':' + artifactId, index);
+            }
+        } else if (groupId.indexOf('*') == groupId.length() - 1 && groupId.indexOf('?') == -1) {
+            PrefixNode node = prefixes;
+            for (int i = 0; i < groupId.length() - 1; i++) {
+                node = node.children.computeIfAbsent(groupId.charAt(i), c -> new PrefixNode());
+            }
+            node.entries.add(new PrefixEntry(index, artifactId));
+        } else {
+            fallbacks.add(new FallbackPattern(index, pattern));
+        }
+    }
+
+    private static boolean isWildcard(String token) {
+        return token.indexOf('*') != -1 || token.indexOf('?') != -1;
+    }
+
+}
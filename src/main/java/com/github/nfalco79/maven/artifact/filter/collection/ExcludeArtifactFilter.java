@@ -15,22 +15,21 @@
  */
 package com.github.nfalco79.maven.artifact.filter.collection;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.List;
 
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.shared.artifact.filter.PatternExcludesArtifactFilter;
-import org.apache.maven.shared.artifact.filter.collection.AbstractArtifactsFilter;
-import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
 
 /**
  * An implementation of an exclusion filter based on a collection of exclusion
  * patterns.
  */
-public class ExcludeArtifactFilter extends AbstractArtifactsFilter {
+public class ExcludeArtifactFilter extends AbstractArtifactPredicateFilter {
 
-    private final Collection<String> patterns;
+    private final List<String> patterns;
+    private final ArtifactPatternMatcher matcher;
+    private final int hash;
 
     /**
      * The constructor of the exclusion filter based on a collection of
@@ -40,17 +39,44 @@ public class ExcludeArtifactFilter extends AbstractArtifactsFilter {
      *            the collection of exclusion patterns
      */
     public ExcludeArtifactFilter(Collection<String> patterns) {
-        this.patterns = patterns; // NOSONAR
+        this.patterns = new ArrayList<>(patterns);
+        this.matcher = new ArtifactPatternMatcher(patterns);
+        // filters are keys of the decision cache, do not hash all patterns at each lookup
+        this.hash = this.patterns.hashCode();
     }
 
     @Override
-    public Set<Artifact> filter(Set<Artifact> artifacts) throws ArtifactFilterException {
-        if (!patterns.isEmpty()) {
-            PatternExcludesArtifactFilter excludeFilter = new PatternExcludesArtifactFilter(patterns);
-            return artifacts.stream().filter(a -> excludeFilter.include(a)).collect(Collectors.toSet());
+    public boolean include(Artifact artifact) {
+        return !matcher.matches(artifact);
+    }
+
+    @Override
+    public boolean isIncludeAll() {
+        return matcher.isEmpty();
+    }
+
+    @Override
+    public int getCost() {
+        return matcher.getCost();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof ExcludeArtifactFilter)) {
+            return false;
         }
 
-        return artifacts;
+        ExcludeArtifactFilter other = (ExcludeArtifactFilter) obj;
+        return hash == other.hash && patterns.equals(other.patterns);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * A read-only view of the artifacts of a set that pass a filter.
+ * <p>
+ * The view does not copy the artifacts, the filter is evaluated every time
+ * the view is iterated, so changes of the underlying set are visible. Methods
+ * like {@link #size()} have to iterate the whole set, use
+ * {@link #materialize()} to take a snapshot when the view is used many times.
+ */
+public class FilteredArtifactSet extends AbstractSet<Artifact> {
+
+    private final Set<Artifact> artifacts;
+    private final Predicate<Artifact> filter;
+
+    /**
+     * Default constructor.
+     *
+     * @param artifacts
+     *            the underlying set
+     * @param filter
+     *            the filter of the artifacts in the view
+     */
+    public FilteredArtifactSet(Set<Artifact> artifacts, Predicate<Artifact> filter) {
+        if (artifacts instanceof FilteredArtifactSet) {
+            // avoid a chain of nested iterators
+            FilteredArtifactSet view = (FilteredArtifactSet) artifacts;
+            this.artifacts = view.artifacts;
+            this.filter = view.filter.and(filter);
+        } else {
+            this.artifacts = artifacts;
+            this.filter = filter;
+        }
+    }
+
+    @Override
+    public Iterator<Artifact> iterator() {
+        Iterator<Artifact> iterator = artifacts.iterator();
+        return new Iterator<Artifact>() {
+            private Artifact next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && iterator.hasNext()) {
+                    Artifact artifact = iterator.next();
+                    if (filter.test(artifact)) {
+                        next = artifact;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Artifact next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Artifact artifact = next;
+                next = null;
+                return artifact;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Artifact artifact : artifacts) {
+            if (filter.test(artifact)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return artifacts.contains(o) && filter.test((Artifact) o);
+    }
+
+    /**
+     * Returns a new set with the artifacts currently in this view.
+     *
+     * @return a snapshot of this view
+     */
+    public Set<Artifact> materialize() {
+        Set<Artifact> snapshot = new HashSet<>();
+        for (Artifact artifact : artifacts) {
+            if (filter.test(artifact)) {
+                snapshot.add(artifact);
+            }
+        }
+        return snapshot;
+    }
+
+}
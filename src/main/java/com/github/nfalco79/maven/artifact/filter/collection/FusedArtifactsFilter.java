@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.artifact.filter.collection.AbstractArtifactsFilter;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
+import org.apache.maven.shared.artifact.filter.collection.ArtifactsFilter;
+import org.apache.maven.shared.artifact.filter.collection.FilterArtifacts;
+
+/**
+ * A chain of collection filters that runs consecutive
+ * {@link AbstractArtifactPredicateFilter}s in a single pass over the artifacts
+ * collecting a single result set, instead of a new set for each filter.
+ * <p>
+ * Inside a single pass filters are reordered so that cheap filters that
+ * exclude more artifacts run first. The order is learnt from previous calls
+ * and does not change the result. Other kind of filters are applied as is,
+ * in the given position of the chain.
+ */
+public class FusedArtifactsFilter extends AbstractArtifactsFilter {
+
+    private static class FusedPass implements ArtifactsFilter {
+        private final AbstractArtifactPredicateFilter[] filters;
+        private final long[] evaluated;
+        private final long[] excluded;
+        private volatile int[] order;
+
+        FusedPass(List<AbstractArtifactPredicateFilter> filters) {
+            this.filters = filters.toArray(new AbstractArtifactPredicateFilter[filters.size()]);
+            this.evaluated = new long[filters.size()];
+            this.excluded = new long[filters.size()];
+            this.order = rank();
+        }
+
+        @Override
+        public Set<Artifact> filter(Set<Artifact> artifacts) {
+            int[] currentOrder = this.order;
+            long[] passEvaluated = new long[filters.length];
+            long[] passExcluded = new long[filters.length];
+
+            Set<Artifact> result = new HashSet<>();
+            for (Artifact artifact : artifacts) {
+                if (include(artifact, currentOrder, passEvaluated, passExcluded)) {
+                    result.add(artifact);
+                }
+            }
+
+            synchronized (this) {
+                for (int i = 0; i < filters.length; i++) {
+                    evaluated[i] += passEvaluated[i];
+                    excluded[i] += passExcluded[i];
+                }
+                this.order = rank();
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isArtifactIncluded(Artifact artifact) {
+            for (int index : order) {
+                if (!filters[index].include(artifact)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean include(Artifact artifact, int[] order, long[] evaluated, long[] excluded) {
+            for (int index : order) {
+                evaluated[index]++;
+                if (!filters[index].include(artifact)) {
+                    excluded[index]++;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int[] rank() {
+            // expected cost to exclude an artifact, unknown ratio counts as one exclusion out of two tests
+            double[] rank = new double[filters.length];
+            Integer[] indexes = new Integer[filters.length];
+            for (int i = 0; i < filters.length; i++) {
+                rank[i] = filters[i].getCost() * (evaluated[i] + 2d) / (excluded[i] + 1d);
+                indexes[i] = i;
+            }
+            Arrays.sort(indexes, Comparator.comparingDouble(i -> rank[i]));
+            return Arrays.stream(indexes).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private final List<ArtifactsFilter> chain = new ArrayList<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param filters
+     *            the filters to apply in order
+     */
+    public FusedArtifactsFilter(Collection<? extends ArtifactsFilter> filters) {
+        List<AbstractArtifactPredicateFilter> predicates = new ArrayList<>();
+        for (ArtifactsFilter filter : filters) {
+            if (filter instanceof AbstractArtifactPredicateFilter) {
+                AbstractArtifactPredicateFilter predicate = (AbstractArtifactPredicateFilter) filter;
+                if (!predicate.isIncludeAll()) {
+                    predicates.add(predicate);
+                }
+            } else if (filter != null) {
+                addPass(predicates);
+                chain.add(filter);
+            }
+        }
+        addPass(predicates);
+    }
+
+    /**
+     * Replaces the filters of the given {@link FilterArtifacts} with a single
+     * fused filter.
+     *
+     * @param filterArtifacts
+     *            the filters to fuse
+     * @return the given instance
+     */
+    public static FilterArtifacts fuse(FilterArtifacts filterArtifacts) {
+        FusedArtifactsFilter fused = new FusedArtifactsFilter(filterArtifacts.getFilters());
+        filterArtifacts.clearFilters();
+        filterArtifacts.addFilter(fused);
+        return filterArtifacts;
+    }
+
+    private void addPass(List<AbstractArtifactPredicateFilter> predicates) {
+        if (predicates.size() == 1) {
+            chain.add(predicates.get(0));
+        } else if (!predicates.isEmpty()) {
+            chain.add(new FusedPass(predicates));
+        }
+        predicates.clear();
+    }
+
+    /**
+     * Returns a live view of the given artifacts that pass all filters,
+     * without copy them. Filters that are not
+     * {@link AbstractArtifactPredicateFilter} can only work on a whole set, in
+     * which case the view is built on top of their result.
+     *
+     * @param artifacts
+     *            to filter
+     * @return a filtered view of the artifacts
+     * @throws ArtifactFilterException
+     *             in case of failure of a filter
+     */
+    public FilteredArtifactSet view(Set<Artifact> artifacts) throws ArtifactFilterException {
+        FilteredArtifactSet view = new FilteredArtifactSet(artifacts, a -> true);
+        for (ArtifactsFilter filter : chain) {
+            if (filter instanceof FusedPass) {
+                view = new FilteredArtifactSet(view, ((FusedPass) filter)::isArtifactIncluded);
+            } else if (filter instanceof AbstractArtifactPredicateFilter) {
+                view = ((AbstractArtifactPredicateFilter) filter).view(view);
+            } else {
+                view = new FilteredArtifactSet(filter.filter(view.materialize()), a -> true);
+            }
+        }
+        return view;
+    }
+
+    @Override
+    public Set<Artifact> filter(Set<Artifact> artifacts) throws ArtifactFilterException {
+        for (ArtifactsFilter filter : chain) {
+            artifacts = filter.filter(artifacts);
+        }
+        return artifacts;
+    }
+
+}
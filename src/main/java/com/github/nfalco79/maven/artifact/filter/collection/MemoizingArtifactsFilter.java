@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import org.apache.maven.artifact.Artifact;
+
+import com.github.nfalco79.maven.artifact.resolver.filter.ArtifactFilterCache;
+
+/**
+ * A collection filter that caches the decisions of another filter in an
+ * {@link ArtifactFilterCache}.
+ * <p>
+ * Filters that cost no more than a cache lookup, see {@link #getCost()}, are
+ * not cached.
+ */
+public class MemoizingArtifactsFilter extends AbstractArtifactPredicateFilter {
+
+    // a lookup costs as test some artifact field
+    private static final int LOOKUP_COST = 2;
+
+    private final AbstractArtifactPredicateFilter filter;
+    private final ArtifactFilterCache cache;
+
+    /**
+     * Default constructor.
+     *
+     * @param filter
+     *            the filter to cache, it must decide only on artifact
+     *            coordinates, scope and optional flag
+     * @param cache
+     *            where decisions are cached
+     */
+    public MemoizingArtifactsFilter(AbstractArtifactPredicateFilter filter, ArtifactFilterCache cache) {
+        // equal filters of other modules share the same instance, keys compare it by identity
+        this.filter = cache.intern(filter);
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean include(Artifact artifact) {
+        if (filter.getCost() <= LOOKUP_COST) {
+            return filter.include(artifact);
+        }
+        return cache.include(filter, artifact, filter::include);
+    }
+
+    @Override
+    public boolean isIncludeAll() {
+        return filter.isIncludeAll();
+    }
+
+    @Override
+    public int getCost() {
+        return Math.min(filter.getCost(), LOOKUP_COST);
+    }
+
+    /**
+     * Returns the filter whose decisions are cached.
+     *
+     * @return the cached filter
+     */
+    public AbstractArtifactPredicateFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public int hashCode() {
+        return filter.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof MemoizingArtifactsFilter)) {
+            return false;
+        }
+
+        return filter.equals(((MemoizingArtifactsFilter) obj).filter);
+    }
+
+}
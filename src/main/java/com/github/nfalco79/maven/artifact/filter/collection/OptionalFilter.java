@@ -15,18 +15,13 @@
  */
 package com.github.nfalco79.maven.artifact.filter.collection;
 
-import java.util.Set;
-import java.util.stream.Collectors;
-
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.shared.artifact.filter.collection.AbstractArtifactsFilter;
-import org.apache.maven.shared.artifact.filter.collection.ArtifactFilterException;
 
 /**
  * An implementation of inclusion filter which includes optional artifacts based
  * on the value of a boolean parameter.
  */
-public class OptionalFilter extends AbstractArtifactsFilter {
+public class OptionalFilter extends AbstractArtifactPredicateFilter {
 
     private boolean includeOptional;
 
@@ -43,11 +38,31 @@ public class OptionalFilter extends AbstractArtifactsFilter {
     }
 
     @Override
-    public Set<Artifact> filter(Set<Artifact> artifacts) throws ArtifactFilterException {
-        if (!includeOptional) {
-            return artifacts.stream().filter(a -> !a.isOptional()).collect(Collectors.toSet());
+    public boolean include(Artifact artifact) {
+        return includeOptional || !artifact.isOptional();
+    }
+
+    @Override
+    public boolean isIncludeAll() {
+        return includeOptional;
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.hashCode(includeOptional);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
         }
-        return artifacts;
+
+        if (!(obj instanceof OptionalFilter)) {
+            return false;
+        }
+
+        return includeOptional == ((OptionalFilter) obj).includeOptional;
     }
 
 }
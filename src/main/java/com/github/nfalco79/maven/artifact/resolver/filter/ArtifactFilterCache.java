@@ -0,0 +1,278 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.resolver.filter;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.maven.artifact.Artifact;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * A bounded cache of filter decisions shared between all the modules of a
+ * reactor build.
+ * <p>
+ * Decisions are keyed by the filter and the artifact coordinates, scope and
+ * optional flag. Filters are compared by equals/hashCode, so equal filters of
+ * different modules share their decisions, filters that do not implement them
+ * are only equal to themselves. Only filters that decide on these attributes
+ * can be cached.
+ * <p>
+ * Lookups reuse a key for each thread, a key is allocated only to store a new
+ * decision. Filters that are {@link #intern(Object) interned} are compared by
+ * identity, without to compare their content at each lookup.
+ * <p>
+ * When the cache is full a part of the entries is evicted, without any
+ * particular order.
+ */
+public class ArtifactFilterCache {
+
+    private static final String SESSION_KEY = ArtifactFilterCache.class.getName();
+    private static final ThreadLocal<Key> LOOKUP_KEY = ThreadLocal.withInitial(Key::new);
+
+    private static final class Key {
+        // mutable only for lookup keys, never for the stored ones
+        private Object filter;
+        private String groupId;
+        private String artifactId;
+        private String version;
+        private String type;
+        private String classifier;
+        private String scope;
+        private boolean optional;
+        private int hash;
+
+        Key set(Object filter, Artifact artifact) {
+            this.filter = filter;
+            this.groupId = artifact.getGroupId();
+            this.artifactId = artifact.getArtifactId();
+            this.version = artifact.getVersion();
+            this.type = artifact.getType();
+            this.classifier = artifact.getClassifier();
+            this.scope = artifact.getScope();
+            this.optional = artifact.isOptional();
+            int h = filter.hashCode();
+            h = 31 * h + Objects.hashCode(groupId);
+            h = 31 * h + Objects.hashCode(artifactId);
+            h = 31 * h + Objects.hashCode(version);
+            h = 31 * h + Objects.hashCode(type);
+            h = 31 * h + Objects.hashCode(classifier);
+            h = 31 * h + Objects.hashCode(scope);
+            this.hash = 31 * h + (optional ? 1 : 0);
+            return this;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.filter = filter;
+            key.groupId = groupId;
+            key.artifactId = artifactId;
+            key.version = version;
+            key.type = type;
+            key.classifier = classifier;
+            key.scope = scope;
+            key.optional = optional;
+            key.hash = hash;
+            return key;
+        }
+
+        void clear() {
+            // do not retain filters and artifacts of a finished build
+            filter = null;
+            groupId = artifactId = version = type = classifier = scope = null;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && optional == other.optional //
+                    && Objects.equals(artifactId, other.artifactId) //
+                    && Objects.equals(groupId, other.groupId) //
+                    && Objects.equals(version, other.version) //
+                    && Objects.equals(type, other.type) //
+                    && Objects.equals(classifier, other.classifier) //
+                    && Objects.equals(scope, other.scope) //
+                    && (filter == other.filter || filter.equals(other.filter));
+        }
+    }
+
+    /**
+     * A filter decision.
+     */
+    @FunctionalInterface
+    public interface Decision {
+        /**
+         * Decides about the given artifact.
+         *
+         * @param artifact
+         *            to decide
+         * @return {@code true} if the artifact is included
+         */
+        boolean include(Artifact artifact);
+    }
+
+    private final int maxSize;
+    private final Map<Key, Boolean> decisions = new ConcurrentHashMap<>();
+    private final Map<Object, Object> filters = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Default constructor.
+     *
+     * @param maxSize
+     *            the maximum number of decisions to keep
+     */
+    public ArtifactFilterCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cache bound to the given repository session, creating it at
+     * first request.
+     *
+     * @param session
+     *            the repository session of the build
+     * @return the cache of the build
+     */
+    public static ArtifactFilterCache getInstance(RepositorySystemSession session) {
+        SessionData data = session.getData();
+        ArtifactFilterCache cache = (ArtifactFilterCache) data.get(SESSION_KEY);
+        if (cache == null) {
+            ArtifactFilterCache newCache = new ArtifactFilterCache(100000);
+            if (data.set(SESSION_KEY, null, newCache)) {
+                cache = newCache;
+            } else {
+                cache = (ArtifactFilterCache) data.get(SESSION_KEY);
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the first filter equal to the given one that has been interned
+     * by this cache. Filters are kept for the lifetime of the cache, so only
+     * filters built once per module should be interned.
+     *
+     * @param <T>
+     *            the filter type
+     * @param filter
+     *            a filter
+     * @return the interned filter
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T intern(T filter) {
+        Object interned = filters.putIfAbsent(filter, filter);
+        return interned == null ? filter : (T) interned;
+    }
+
+    /**
+     * Returns the decision of the given filter about an artifact, computing it
+     * only if not cached.
+     *
+     * @param filter
+     *            identifies the filter
+     * @param artifact
+     *            to decide
+     * @param decision
+     *            computes the decision of the filter
+     * @return {@code true} if the artifact is included
+     */
+    public boolean include(Object filter, Artifact artifact, Decision decision) {
+        Key lookupKey = LOOKUP_KEY.get().set(filter, artifact);
+        Boolean include = decisions.get(lookupKey);
+        Key key = include == null ? lookupKey.copy() : null;
+        lookupKey.clear();
+        if (include != null) {
+            hits.increment();
+            return include;
+        }
+        misses.increment();
+        include = decision.include(artifact);
+        if (decisions.size() >= maxSize) {
+            evict();
+        }
+        decisions.put(key, include);
+        return include;
+    }
+
+    private void evict() {
+        // drop about a quarter of the entries, cheaper than keep an access order
+        int toRemove = Math.max(1, maxSize / 4);
+        Iterator<Key> it = decisions.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the number of decisions served from cache.
+     *
+     * @return the cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of decisions computed.
+     *
+     * @return the cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the ratio of decisions served from cache.
+     *
+     * @return the hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Returns the number of cached decisions.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        return decisions.size();
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.resolver.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.resolver.filter.AndArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.CumulativeScopeArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+
+/**
+ * Compiles a tree of artifact filters into a single filter that tests the
+ * type, scope and optional flag of an artifact with bitmasks.
+ * <p>
+ * Supported filters are {@link TypeFiler}, {@link OptionalFilter},
+ * {@link ScopeArtifactFilter}, {@link CumulativeScopeArtifactFilter} and
+ * {@link AndArtifactFilter} of them. Scope filters expose no configuration,
+ * so their decision is probed for each scope. Any other filter is kept as is
+ * and evaluated after the bitmasks.
+ */
+public final class ArtifactFilterCompiler {
+
+    private static final String[] SCOPES = { Artifact.SCOPE_COMPILE, Artifact.SCOPE_RUNTIME, Artifact.SCOPE_TEST, Artifact.SCOPE_PROVIDED,
+            Artifact.SCOPE_SYSTEM };
+    private static final int OTHER_SCOPE = 1 << SCOPES.length;
+    private static final int ALL_SCOPES = (OTHER_SCOPE << 1) - 1;
+    private static final int NOT_OPTIONAL = 1;
+    private static final int OPTIONAL = 2;
+    private static final long OTHER_TYPE = Long.MIN_VALUE;
+    private static final long ALL_TYPES = -1L;
+    // types are interned once for all compiled filters, the last bit is for all other types
+    private static final Map<String, Long> TYPES = new ConcurrentHashMap<>();
+
+    private static class CompiledArtifactFilter implements ArtifactFilter {
+        private final ArtifactFilter filter;
+        private final long typeMask;
+        private final int scopeMask;
+        private final int optionalMask;
+        private final ArtifactFilter[] fallbacks;
+
+        CompiledArtifactFilter(ArtifactFilter filter, long typeMask, int scopeMask, int optionalMask, List<ArtifactFilter> fallbacks) {
+            this.filter = filter;
+            this.typeMask = typeMask;
+            this.scopeMask = scopeMask;
+            this.optionalMask = optionalMask;
+            this.fallbacks = fallbacks.toArray(new ArtifactFilter[fallbacks.size()]);
+        }
+
+        @Override
+        public boolean include(Artifact artifact) {
+            if (artifact == null) {
+                return filter.include(null);
+            }
+            if ((optionalMask & (artifact.isOptional() ? OPTIONAL : NOT_OPTIONAL)) == 0 //
+                    || (scopeMask != ALL_SCOPES && (scopeMask & scopeBit(artifact.getScope())) == 0) //
+                    || (typeMask != ALL_TYPES && (typeMask & typeBit(artifact.getType())) == 0)) {
+                return false;
+            }
+            for (ArtifactFilter fallback : fallbacks) {
+                if (!fallback.include(artifact)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return filter.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CompiledArtifactFilter)) {
+                return false;
+            }
+            return filter.equals(((CompiledArtifactFilter) obj).filter);
+        }
+    }
+
+    private long typeMask = ALL_TYPES;
+    private int scopeMask = ALL_SCOPES;
+    private int optionalMask = NOT_OPTIONAL | OPTIONAL;
+    private final List<ArtifactFilter> fallbacks = new ArrayList<>();
+    private boolean compiled;
+
+    private ArtifactFilterCompiler() {
+    }
+
+    /**
+     * Compiles the given filter.
+     *
+     * @param filter
+     *            to compile
+     * @return the compiled filter or the given filter if it contains nothing
+     *         to compile
+     */
+    public static ArtifactFilter compile(ArtifactFilter filter) {
+        if (filter == null) {
+            return null;
+        }
+        ArtifactFilterCompiler compiler = new ArtifactFilterCompiler();
+        compiler.add(filter);
+        if (!compiler.compiled) {
+            return filter;
+        }
+        return new CompiledArtifactFilter(filter, compiler.typeMask, compiler.scopeMask, compiler.optionalMask, compiler.fallbacks);
+    }
+
+    private void add(ArtifactFilter filter) {
+        // subclasses could change the behaviour, only well known classes are compiled
+        Class<?> filterClass = filter.getClass();
+        if (filterClass == AndArtifactFilter.class) {
+            for (ArtifactFilter child : ((AndArtifactFilter) filter).getFilters()) {
+                add(child);
+            }
+        } else if (filterClass == TypeFiler.class && internType(((TypeFiler) filter).getType()) != null) {
+            typeMask &= internType(((TypeFiler) filter).getType());
+            compiled = true;
+        } else if (filterClass == OptionalFilter.class) {
+            optionalMask &= ((OptionalFilter) filter).isIncludeOptional() ? NOT_OPTIONAL | OPTIONAL : NOT_OPTIONAL;
+            compiled = true;
+        } else if (filterClass == ScopeArtifactFilter.class || filterClass == CumulativeScopeArtifactFilter.class) {
+            scopeMask &= probeScopes(filter);
+            compiled = true;
+        } else {
+            fallbacks.add(filter);
+        }
+    }
+
+    private static int probeScopes(ArtifactFilter filter) {
+        int mask = 0;
+        for (int i = 0; i < SCOPES.length; i++) {
+            if (filter.include(probe(SCOPES[i]))) {
+                mask |= 1 << i;
+            }
+        }
+        if (filter.include(probe(null))) {
+            mask |= OTHER_SCOPE;
+        }
+        return mask;
+    }
+
+    private static Artifact probe(String scope) {
+        return new DefaultArtifact("probe", "probe", "1.0", scope, "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    private static Long internType(String type) {
+        if (type == null) {
+            return null;
+        }
+        Long bit = TYPES.get(type);
+        if (bit == null) {
+            synchronized (TYPES) {
+                bit = TYPES.get(type);
+                if (bit == null && TYPES.size() < 63) {
+                    bit = 1L << TYPES.size();
+                    TYPES.put(type, bit);
+                }
+            }
+        }
+        return bit;
+    }
+
+    private static int scopeBit(String scope) {
+        if (scope == null) {
+            return OTHER_SCOPE;
+        }
+        // same order of SCOPES
+        switch (scope) {
+        case Artifact.SCOPE_COMPILE:
+            return 1;
+        case Artifact.SCOPE_RUNTIME:
+            return 1 << 1;
+        case Artifact.SCOPE_TEST:
+            return 1 << 2;
+        case Artifact.SCOPE_PROVIDED:
+            return 1 << 3;
+        case Artifact.SCOPE_SYSTEM:
+            return 1 << 4;
+        default:
+            return OTHER_SCOPE;
+        }
+    }
+
+    private static long typeBit(String type) {
+        Long bit = type == null ? null : TYPES.get(type);
+        return bit == null ? OTHER_TYPE : bit;
+    }
+
+}
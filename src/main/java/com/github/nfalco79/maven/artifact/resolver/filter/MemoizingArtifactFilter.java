@@ -0,0 +1,81 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.resolver.filter;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+
+/**
+ * An implementation of inclusion filter that caches the decisions of another
+ * filter in an {@link ArtifactFilterCache}.
+ */
+public class MemoizingArtifactFilter implements ArtifactFilter {
+
+    private final ArtifactFilter filter;
+    private final ArtifactFilterCache cache;
+
+    /**
+     * Default constructor.
+     *
+     * @param filter
+     *            the filter to cache, it must decide only on artifact
+     *            coordinates, scope and optional flag
+     * @param cache
+     *            where decisions are cached
+     */
+    public MemoizingArtifactFilter(ArtifactFilter filter, ArtifactFilterCache cache) {
+        // equal filters of other modules share the same instance, keys compare it by identity
+        this.filter = cache.intern(filter);
+        this.cache = cache;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.apache.maven.artifact.resolver.filter.ArtifactFilter#include(org.apache.maven.artifact.Artifact)
+     */
+    @Override
+    public boolean include(Artifact artifact) {
+        return cache.include(filter, artifact, filter::include);
+    }
+
+    /**
+     * Returns the filter whose decisions are cached.
+     *
+     * @return the cached filter
+     */
+    public ArtifactFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public int hashCode() {
+        return filter.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof MemoizingArtifactFilter)) {
+            return false;
+        }
+
+        return filter.equals(((MemoizingArtifactFilter) obj).filter);
+    }
+
+}
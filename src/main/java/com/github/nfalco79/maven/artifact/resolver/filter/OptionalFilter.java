@@ -35,6 +35,15 @@ public class OptionalFilter implements ArtifactFilter {
         this.includeOptional = includeOptional;
     }
 
+    /**
+     * Returns if optional artifacts are included.
+     *
+     * @return {@code true} if optional artifacts are included
+     */
+    public boolean isIncludeOptional() {
+        return includeOptional;
+    }
+
     public boolean include(Artifact artifact) {
         return includeOptional ? true : !artifact.isOptional();
     }
@@ -36,6 +36,15 @@ public class TypeFiler implements ArtifactFilter {
         this.type = type;
     }
 
+    /**
+     * Returns the type of accepted artifacts.
+     *
+     * @return the artifact type
+     */
+    public String getType() {
+        return type;
+    }
+
     /*
      * (non-Javadoc)
      * @see org.apache.maven.artifact.resolver.filter.ArtifactFilter#include(org.apache.maven.artifact.Artifact)
@@ -45,4 +54,26 @@ public class TypeFiler implements ArtifactFilter {
         return artifact != null && type.equals(artifact.getType());
     }
 
+    @Override
+    public int hashCode() {
+        int hash = 17;
+        hash = hash * 31 + type.hashCode();
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof TypeFiler)) {
+            return false;
+        }
+
+        TypeFiler other = (TypeFiler) obj;
+
+        return type.equals(other.type);
+    }
+
 }
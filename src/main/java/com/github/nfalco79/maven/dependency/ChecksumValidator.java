@@ -0,0 +1,193 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Verifies an artifact file against the checksum files stored beside it in
+ * the local repository.
+ */
+class ChecksumValidator {
+
+    /**
+     * Supported checksums, from the strongest to the weakest.
+     */
+    enum Algorithm {
+        SHA256("SHA-256", "sha256", 64), SHA1("SHA-1", "sha1", 40);
+
+        private final String name;
+        private final String extension;
+        private final int length;
+
+        Algorithm(String name, String extension, int length) {
+            this.name = name;
+            this.extension = extension;
+            this.length = length;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int HEAP_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BUFFERS = Runtime.getRuntime().availableProcessors();
+
+    // direct buffers are expensive to allocate and are released only by the
+    // GC, a few are shared between threads instead of one for each thread
+    private final BlockingQueue<ByteBuffer> buffers = new ArrayBlockingQueue<>(MAX_BUFFERS);
+    private final AtomicInteger allocatedBuffers = new AtomicInteger();
+
+    /**
+     * Verifies the given file with the strongest checksum file available.
+     *
+     * @param file
+     *            to verify
+     * @return {@code false} if the digest of the file does not match the
+     *         expected checksum, {@code true} otherwise or if there is no
+     *         checksum to compare with
+     * @throws IOException
+     *             in case of failure reading the file
+     */
+    public boolean isValid(File file) throws IOException {
+        return isValid(file, null);
+    }
+
+    /**
+     * Verifies the given file with the strongest checksum file available,
+     * unless the cache reports that the file and its checksum are unchanged
+     * since last validation.
+     *
+     * @param file
+     *            to verify
+     * @param cache
+     *            the cache of validated files, could be {@code null}
+     * @return {@code false} if the digest of the file does not match the
+     *         expected checksum, {@code true} otherwise or if there is no
+     *         checksum to compare with
+     * @throws IOException
+     *             in case of failure reading the file
+     */
+    public boolean isValid(File file, ValidationCache cache) throws IOException {
+        for (Algorithm algorithm : Algorithm.values()) {
+            String expected = readChecksum(new File(file.getPath() + '.' + algorithm.extension), algorithm);
+            if (expected != null) {
+                // the checksum file is small, a replaced one verifies the file again
+                String checksum = algorithm.extension + ':' + expected;
+                if (cache != null && cache.isValidated(file, checksum)) {
+                    return true;
+                }
+                String digest = digest(file, algorithm);
+                boolean valid = expected.equalsIgnoreCase(digest);
+                if (valid && cache != null) {
+                    cache.validated(file, algorithm.extension + ':' + digest);
+                }
+                return valid;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the digest of the given file.
+     *
+     * @param file
+     *            to digest
+     * @param algorithm
+     *            the digest algorithm
+     * @return the hexadecimal digest
+     * @throws IOException
+     *             in case of failure reading the file
+     */
+    public String digest(File file, Algorithm algorithm) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm.name);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // a mapped file can not be deleted on Windows until it is unmapped,
+        // broken files are purged so read through a direct buffer instead
+        ByteBuffer buffer = acquireBuffer();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+        return toHex(digest.digest());
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocatedBuffers.getAndUpdate(count -> count < MAX_BUFFERS ? count + 1 : count) < MAX_BUFFERS) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        // all direct buffers are in use, a small heap buffer is collected
+        // with the task
+        return ByteBuffer.allocate(HEAP_BUFFER_SIZE);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            buffers.offer(buffer);
+        }
+    }
+
+    private String readChecksum(File checksumFile, Algorithm algorithm) throws IOException {
+        if (!checksumFile.isFile()) {
+            return null;
+        }
+        // checksum files could contains also the file name
+        for (String token : FileUtils.readFileToString(checksumFile, StandardCharsets.US_ASCII).trim().split("\\s+")) {
+            if (token.length() == algorithm.length && token.chars().allMatch(c -> Character.digit(c, 16) != -1)) {
+                return token;
+            }
+        }
+        return null;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+}
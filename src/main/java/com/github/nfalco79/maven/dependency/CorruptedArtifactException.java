@@ -0,0 +1,36 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Exception raised when the artifact file does not match the checksum stored
+ * in the local repository.
+ */
+@SuppressWarnings("serial")
+public class CorruptedArtifactException extends EmptyArtifactException {
+
+    /**
+     * Constructs a new exception for the given artifact.
+     *
+     * @param artifact has a wrong checksum.
+     */
+    public CorruptedArtifactException(Artifact artifact) {
+        super("Fail to download artifact " + artifact.toString() + ", checksum does not match", artifact);
+    }
+
+}
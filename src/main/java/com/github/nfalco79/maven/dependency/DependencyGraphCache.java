@@ -0,0 +1,460 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession.Mode;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphWalker;
+
+/**
+ * A cache of dependency graphs and resolved artifact files shared by all
+ * modules of a reactor build.
+ * <p>
+ * Graphs are cached by the coordinates and the effective dependency model of
+ * the project, the artifact filter, the repository configuration and the mode
+ * and limits of the {@link DependencyGraphSession} that built them. The root
+ * of a graph is the project itself, so a graph is reused only by the same
+ * module, for example when more plugins or executions resolve its
+ * dependencies in the same build. Filters are compared by equals/hashCode,
+ * filters that do not implement them are only equal to themselves. Each
+ * caller gets its own copy of the graph and of its artifacts, so that changes
+ * made by a caller do not leak into the cache. A cached graph saves only its
+ * build, the resolver still validates its artifacts.
+ * <p>
+ * Artifact files are cached by coordinates so that artifacts shared between
+ * modules are resolved and validated only once.
+ * <p>
+ * Both caches have a bounded size and evict the least recently used entry.
+ * A cached entry is returned only if all its artifact files still exist.
+ */
+public class DependencyGraphCache {
+
+    private static final String SESSION_KEY = DependencyGraphCache.class.getName();
+
+    private static class LruCache<K, V> {
+        private final Map<K, V> entries;
+        private long hits;
+        private long misses;
+
+        LruCache(int maxSize) {
+            this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            V value = entries.get(key);
+            if (value == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return value;
+        }
+
+        synchronized void put(K key, V value) {
+            entries.put(key, value);
+        }
+
+        synchronized void remove(K key) {
+            entries.remove(key);
+        }
+
+        synchronized long getHits() {
+            return hits;
+        }
+
+        synchronized long getMisses() {
+            return misses;
+        }
+    }
+
+    private static class CachedGraph {
+        private final DependencyNode rootNode;
+        private final List<Artifact> artifacts;
+
+        CachedGraph(DependencyNode rootNode, Collection<Artifact> artifacts) {
+            this.rootNode = rootNode;
+            this.artifacts = new ArrayList<>(artifacts);
+        }
+    }
+
+    private static final class GraphKey {
+        private final String model;
+        private final ArtifactFilter filter;
+        private final String repositories;
+        private final Mode mode;
+        private final int maxDepth;
+        private final long maxNodes;
+        private final int hash;
+
+        GraphKey(String model, ArtifactFilter filter, String repositories, Mode mode, int maxDepth, long maxNodes) {
+            this.model = model;
+            this.filter = filter;
+            this.repositories = repositories;
+            this.mode = mode;
+            this.maxDepth = maxDepth;
+            this.maxNodes = maxNodes;
+            this.hash = Objects.hash(model, filter, repositories, mode, maxDepth, maxNodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof GraphKey)) {
+                return false;
+            }
+            GraphKey other = (GraphKey) obj;
+            return hash == other.hash && mode == other.mode && maxDepth == other.maxDepth && maxNodes == other.maxNodes && model.equals(other.model)
+                    && repositories.equals(other.repositories) && Objects.equals(filter, other.filter);
+        }
+    }
+
+    private final LruCache<GraphKey, CachedGraph> graphs;
+    private final LruCache<String, File> files;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxGraphs
+     *            the maximum number of dependency graphs to keep
+     * @param maxArtifacts
+     *            the maximum number of artifact files to keep
+     */
+    public DependencyGraphCache(int maxGraphs, int maxArtifacts) {
+        if (maxGraphs < 1 || maxArtifacts < 1) {
+            throw new IllegalArgumentException("cache size must be greater than 0");
+        }
+        this.graphs = new LruCache<>(maxGraphs);
+        this.files = new LruCache<>(maxArtifacts);
+    }
+
+    /**
+     * Returns the cache bound to the given repository session, creating it at
+     * first request. The repository session lives for the whole reactor
+     * build, so the cache is shared between all modules.
+     *
+     * @param session
+     *            the repository session of the build
+     * @return the cache of the build
+     */
+    public static DependencyGraphCache getInstance(RepositorySystemSession session) {
+        SessionData data = session.getData();
+        DependencyGraphCache cache = (DependencyGraphCache) data.get(SESSION_KEY);
+        if (cache == null) {
+            DependencyGraphCache newCache = new DependencyGraphCache(200, 50000);
+            if (data.set(SESSION_KEY, null, newCache)) {
+                cache = newCache;
+            } else {
+                cache = (DependencyGraphCache) data.get(SESSION_KEY);
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the dependency graph of the given project if it has been cached
+     * and all its artifact files still exist.
+     *
+     * @param project
+     *            the project
+     * @param filter
+     *            the artifact filter used to build the graph
+     * @param session
+     *            the repository session used to build the graph
+     * @return a copy of the cached graph or {@code null}
+     */
+    public DependencyNode getGraph(MavenProject project, ArtifactFilter filter, RepositorySystemSession session) {
+        GraphKey key = graphKey(project, filter, session);
+        CachedGraph graph = graphs.get(key);
+        if (graph == null) {
+            return null;
+        }
+        for (Artifact artifact : graph.artifacts) {
+            if (!isValid(artifact.getFile())) {
+                // the local repository has been changed meanwhile
+                graphs.remove(key);
+                return null;
+            }
+        }
+        return copy(graph.rootNode);
+    }
+
+    /**
+     * Caches a resolved and validated dependency graph and the files of its
+     * artifacts.
+     *
+     * @param project
+     *            the project
+     * @param filter
+     *            the artifact filter used to build the graph
+     * @param session
+     *            the repository session used to build the graph
+     * @param rootNode
+     *            the root node of the graph
+     * @param artifacts
+     *            the resolved artifacts of the graph
+     */
+    public void putGraph(MavenProject project, ArtifactFilter filter, RepositorySystemSession session, DependencyNode rootNode, Collection<Artifact> artifacts) {
+        graphs.put(graphKey(project, filter, session), new CachedGraph(copy(rootNode), artifacts));
+        for (Artifact artifact : artifacts) {
+            putFile(artifact);
+        }
+    }
+
+    /**
+     * Returns the file of an artifact already resolved and validated in this
+     * build.
+     *
+     * @param artifact
+     *            to lookup
+     * @return the artifact file or {@code null} if not cached or no more
+     *         available
+     */
+    public File getFile(Artifact artifact) {
+        String key = artifact.getId();
+        File file = files.get(key);
+        if (file != null && !isValid(file)) {
+            files.remove(key);
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Caches the file of a resolved and validated artifact.
+     *
+     * @param artifact
+     *            the artifact with its file
+     */
+    public void putFile(Artifact artifact) {
+        if (artifact.getFile() != null) {
+            files.put(artifact.getId(), artifact.getFile());
+        }
+    }
+
+    /**
+     * Removes the file of an artifact that is no longer valid.
+     *
+     * @param artifact
+     *            to remove
+     */
+    public void removeFile(Artifact artifact) {
+        files.remove(artifact.getId());
+    }
+
+    /**
+     * Returns the number of dependency graphs served from cache.
+     *
+     * @return the graph cache hits
+     */
+    public long getGraphHits() {
+        return graphs.getHits();
+    }
+
+    /**
+     * Returns the number of dependency graphs not found in cache.
+     *
+     * @return the graph cache misses
+     */
+    public long getGraphMisses() {
+        return graphs.getMisses();
+    }
+
+    /**
+     * Returns the number of artifact files served from cache.
+     *
+     * @return the artifact cache hits
+     */
+    public long getArtifactHits() {
+        return files.getHits();
+    }
+
+    /**
+     * Returns the number of artifact files not found in cache.
+     *
+     * @return the artifact cache misses
+     */
+    public long getArtifactMisses() {
+        return files.getMisses();
+    }
+
+    /**
+     * Copies the given graph. Artifacts shared between nodes are shared also
+     * in the copy.
+     *
+     * @param rootNode
+     *            the root node of the graph
+     * @return the root node of the copy
+     */
+    static DependencyNode copy(DependencyNode rootNode) {
+        Map<Artifact, Artifact> artifacts = new IdentityHashMap<>();
+        Deque<DefaultDependencyNode> path = new ArrayDeque<>();
+        DefaultDependencyNode[] root = new DefaultDependencyNode[1];
+        DependencyGraphWalker.walk(rootNode, new DependencyNodeVisitor() {
+            @Override
+            public boolean visit(DependencyNode node) {
+                DefaultDependencyNode parent = path.peek();
+                Artifact artifact = artifacts.computeIfAbsent(node.getArtifact(), ArtifactUtils::copyArtifact);
+                List<Exclusion> exclusions = node.getExclusions() == null ? null : new ArrayList<>(node.getExclusions());
+                DefaultDependencyNode copy = new DefaultDependencyNode(parent, artifact, node.getPremanagedVersion(), node.getPremanagedScope(),
+                        node.getVersionConstraint(), node.getOptional(), exclusions);
+                copy.setChildren(new ArrayList<>());
+                if (parent == null) {
+                    root[0] = copy;
+                } else {
+                    parent.getChildren().add(copy);
+                }
+                path.push(copy);
+                return true;
+            }
+
+            @Override
+            public boolean endVisit(DependencyNode node) {
+                path.pop();
+                return true;
+            }
+        });
+        return root[0];
+    }
+
+    private boolean isValid(File file) {
+        return file != null && file.length() > 0;
+    }
+
+    private GraphKey graphKey(MavenProject project, ArtifactFilter filter, RepositorySystemSession session) {
+        if (session instanceof DependencyGraphSession) {
+            DependencyGraphSession graphSession = (DependencyGraphSession) session;
+            return new GraphKey(modelKey(project), filter, repositoryKey(project, session), graphSession.getMode(), graphSession.getMaxDepth(),
+                    graphSession.getMaxNodes());
+        }
+        // graph transformed as configured by the build
+        return new GraphKey(modelKey(project), filter, repositoryKey(project, session), null, 0, 0);
+    }
+
+    /**
+     * Returns a key of the mode and limits of the dependency graph built with
+     * the given session.
+     *
+     * @param session
+     *            the repository session used to build the graph
+     * @return the key of graph mode, maximum depth and maximum nodes
+     */
+    static String graphSessionKey(RepositorySystemSession session) {
+        if (session instanceof DependencyGraphSession) {
+            DependencyGraphSession graphSession = (DependencyGraphSession) session;
+            return graphSession.getMode() + ":" + graphSession.getMaxDepth() + ":" + graphSession.getMaxNodes();
+        }
+        return "";
+    }
+
+    /**
+     * Returns a key of the effective dependency model of the project.
+     *
+     * @param project
+     *            the project
+     * @return the key of dependencies and dependency management
+     */
+    static String modelKey(MavenProject project) {
+        StringBuilder model = new StringBuilder();
+        model.append(project.getGroupId()).append(':').append(project.getArtifactId()).append(':').append(project.getVersion());
+        appendDependencies(model.append("|dependencies"), project.getDependencies());
+        DependencyManagement dependencyManagement = project.getDependencyManagement();
+        if (dependencyManagement != null) {
+            appendDependencies(model.append("|management"), dependencyManagement.getDependencies());
+        }
+        return model.toString();
+    }
+
+    /**
+     * Returns a key of the repositories where the dependencies of the project
+     * are resolved.
+     *
+     * @param project
+     *            the project
+     * @param session
+     *            the repository session
+     * @return the key of local and remote repositories
+     */
+    static String repositoryKey(MavenProject project, RepositorySystemSession session) {
+        StringBuilder repositories = new StringBuilder();
+        LocalRepository localRepository = session != null ? session.getLocalRepository() : null;
+        if (localRepository != null) {
+            repositories.append(localRepository.getBasedir());
+        }
+        List<RemoteRepository> remoteRepositories = project.getRemoteProjectRepositories();
+        if (remoteRepositories != null) {
+            for (RemoteRepository repository : remoteRepositories) {
+                repositories.append('|').append(repository.getId()).append('=').append(repository.getUrl());
+            }
+        }
+        return repositories.toString();
+    }
+
+    private static void appendDependencies(StringBuilder sb, List<Dependency> dependencies) {
+        if (dependencies == null) {
+            return;
+        }
+        for (Dependency dependency : dependencies) {
+            sb.append(';').append(dependency.getManagementKey()) //
+                    .append(':').append(dependency.getVersion()) //
+                    .append(':').append(dependency.getScope()) //
+                    .append(':').append(dependency.isOptional());
+            for (Exclusion exclusion : dependency.getExclusions()) {
+                sb.append('!').append(exclusion.getGroupId()).append(':').append(exclusion.getArtifactId());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.InvalidArtifactRTException;
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.eclipse.aether.RepositorySystemSession;
+
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphWalker;
+
+/**
+ * Stores resolved dependency graphs on disk in a compact binary format, so
+ * that unchanged projects do not need to build their graph again.
+ * <p>
+ * A snapshot contains the SHA-256 digest of its key, a table of all distinct
+ * strings, a table of artifacts whose coordinates are indexes in the string
+ * table, and the nodes of the graph in pre-order with the number of their
+ * children. Artifact instances
+ * shared between nodes are shared also in the loaded graph.
+ * <p>
+ * Snapshots are named by a hash of the effective dependency model, the
+ * artifact filter, the repository configuration and the mode and limits of
+ * the session that built the graph. A snapshot is loaded only
+ * if every artifact file it refers still exists.
+ * <p>
+ * The filter is part of the key by its class and hash code, so only filters
+ * whose hashCode is computed from their configuration are supported, other
+ * filters never use snapshots. Two filters of the same class with different
+ * configuration and the same hash code would share a snapshot, filters used
+ * with snapshots must avoid such collisions.
+ * <p>
+ * Graphs with SNAPSHOT artifacts, version ranges or LATEST and RELEASE
+ * versions are not saved, their resolution depends on the content of remote
+ * repositories that the key does not cover.
+ */
+public class DependencyGraphSnapshot {
+
+    private static final int MAGIC = 0x4D474753;
+    private static final int FORMAT_VERSION = 3;
+    private static final String EXTENSION = ".graph";
+
+    private final File directory;
+
+    /**
+     * Default constructor.
+     *
+     * @param directory
+     *            where snapshots are stored
+     */
+    public DependencyGraphSnapshot(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the dependency graph of the given project.
+     *
+     * @param project
+     *            the project
+     * @param filter
+     *            the artifact filter used to build the graph
+     * @param session
+     *            the repository session used to build the graph
+     * @return the root node of the graph or {@code null} if there is no valid
+     *         snapshot
+     * @throws IOException
+     *             in case of failure reading the snapshot
+     */
+    public DependencyNode load(MavenProject project, ArtifactFilter filter, RepositorySystemSession session) throws IOException {
+        if (!isSupported(filter)) {
+            return null;
+        }
+        String key = key(project, filter, session);
+        File snapshot = getFile(key);
+        if (!snapshot.isFile()) {
+            return null;
+        }
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(snapshot.toPath()))) {
+            return read(is, key, snapshot.length());
+        }
+    }
+
+    /**
+     * Saves the dependency graph of the given project.
+     *
+     * @param project
+     *            the project
+     * @param filter
+     *            the artifact filter used to build the graph
+     * @param session
+     *            the repository session used to build the graph
+     * @param rootNode
+     *            the root node of the resolved graph
+     * @return {@code true} if the snapshot has been saved, {@code false} if
+     *         the filter is not supported or the graph could change without
+     *         changes to the project
+     * @throws IOException
+     *             in case of failure writing the snapshot
+     */
+    public boolean save(MavenProject project, ArtifactFilter filter, RepositorySystemSession session, DependencyNode rootNode) throws IOException {
+        if (!isSupported(filter) || !isStable(rootNode)) {
+            return false;
+        }
+        String key = key(project, filter, session);
+        File snapshot = getFile(key);
+        Files.createDirectories(directory.toPath());
+
+        File tmpFile = File.createTempFile(snapshot.getName(), ".tmp", directory);
+        try {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath()))) {
+                write(rootNode, key, os);
+            }
+            // readers never see a partial snapshot
+            Files.move(tmpFile.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+        return true;
+    }
+
+    private static boolean isSupported(ArtifactFilter filter) {
+        try {
+            // an identity hash code is not the same in the next build
+            return filter == null || filter.getClass().getMethod("hashCode").getDeclaringClass() != Object.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isStable(DependencyNode rootNode) {
+        boolean[] stable = { true };
+        DependencyGraphWalker.walk(rootNode, new DependencyNodeVisitor() {
+            @Override
+            public boolean visit(DependencyNode node) {
+                Artifact artifact = node.getArtifact();
+                if (artifact.isSnapshot() || isDynamic(artifact.getVersion()) || isDynamic(node.getVersionConstraint())) {
+                    stable[0] = false;
+                }
+                return stable[0];
+            }
+
+            @Override
+            public boolean endVisit(DependencyNode node) {
+                return stable[0];
+            }
+        });
+        return stable[0];
+    }
+
+    private static boolean isDynamic(String version) {
+        return version != null && (version.startsWith("[") || version.startsWith("(") || Artifact.LATEST_VERSION.equals(version)
+                || Artifact.RELEASE_VERSION.equals(version));
+    }
+
+    private File getFile(String key) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : digest(key)) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return new File(directory, name.append(EXTENSION).toString());
+    }
+
+    private static byte[] digest(String key) {
+        try {
+            // the model key of a project that imports large BOMs is too long for writeUTF
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String key(MavenProject project, ArtifactFilter filter, RepositorySystemSession session) {
+        String filterKey = filter == null ? "" : filter.getClass().getName() + '@' + filter.hashCode();
+        return DependencyGraphCache.modelKey(project) + '#' + filterKey + '#' + DependencyGraphCache.repositoryKey(project, session) + '#'
+                + DependencyGraphCache.graphSessionKey(session);
+    }
+
+    /**
+     * Writes the given graph.
+     *
+     * @param rootNode
+     *            the root node of the graph
+     * @param key
+     *            identifies the graph
+     * @param os
+     *            where write the graph
+     * @throws IOException
+     *             in case of write failure
+     */
+    static void write(DependencyNode rootNode, String key, OutputStream os) throws IOException {
+        List<DependencyNode> nodes = new ArrayList<>();
+        DependencyGraphWalker.walk(rootNode, new DependencyNodeVisitor() {
+            @Override
+            public boolean visit(DependencyNode node) {
+                nodes.add(node);
+                return true;
+            }
+
+            @Override
+            public boolean endVisit(DependencyNode node) {
+                return true;
+            }
+        });
+
+        StringTable strings = new StringTable();
+        Map<Artifact, Integer> artifacts = new IdentityHashMap<>();
+        ByteArrayOutputStream artifactsBuffer = new ByteArrayOutputStream();
+        DataOutputStream artifactsOut = new DataOutputStream(artifactsBuffer);
+        ByteArrayOutputStream nodesBuffer = new ByteArrayOutputStream();
+        DataOutputStream nodesOut = new DataOutputStream(nodesBuffer);
+        for (DependencyNode node : nodes) {
+            Artifact artifact = node.getArtifact();
+            Integer artifactIndex = artifacts.get(artifact);
+            if (artifactIndex == null) {
+                artifactIndex = artifacts.size();
+                artifacts.put(artifact, artifactIndex);
+                artifactsOut.writeInt(strings.indexOf(artifact.getGroupId()));
+                artifactsOut.writeInt(strings.indexOf(artifact.getArtifactId()));
+                artifactsOut.writeInt(strings.indexOf(artifact.getVersion()));
+                artifactsOut.writeInt(strings.indexOf(artifact.getScope()));
+                artifactsOut.writeInt(strings.indexOf(artifact.getType()));
+                artifactsOut.writeInt(strings.indexOf(artifact.getClassifier()));
+                artifactsOut.writeInt(strings.indexOf(artifact.getFile() == null ? null : artifact.getFile().getAbsolutePath()));
+                artifactsOut.writeBoolean(artifact.isOptional());
+                artifactsOut.writeBoolean(artifact.isResolved());
+                ArtifactHandler handler = artifact.getArtifactHandler();
+                artifactsOut.writeInt(strings.indexOf(handler.getExtension()));
+                artifactsOut.writeInt(strings.indexOf(handler.getClassifier()));
+                artifactsOut.writeInt(strings.indexOf(handler.getDirectory()));
+                artifactsOut.writeInt(strings.indexOf(handler.getPackaging()));
+                artifactsOut.writeInt(strings.indexOf(handler.getLanguage()));
+                artifactsOut.writeBoolean(handler.isIncludesDependencies());
+                artifactsOut.writeBoolean(handler.isAddedToClasspath());
+            }
+            nodesOut.writeInt(artifactIndex);
+            nodesOut.writeInt(strings.indexOf(node.getPremanagedVersion()));
+            nodesOut.writeInt(strings.indexOf(node.getPremanagedScope()));
+            nodesOut.writeInt(strings.indexOf(node.getVersionConstraint()));
+            nodesOut.writeByte(node.getOptional() == null ? 0 : (node.getOptional() ? 2 : 1));
+            List<Exclusion> exclusions = node.getExclusions();
+            nodesOut.writeInt(exclusions == null ? -1 : exclusions.size());
+            if (exclusions != null) {
+                for (Exclusion exclusion : exclusions) {
+                    nodesOut.writeInt(strings.indexOf(exclusion.getGroupId()));
+                    nodesOut.writeInt(strings.indexOf(exclusion.getArtifactId()));
+                }
+            }
+            List<DependencyNode> children = node.getChildren();
+            nodesOut.writeInt(children == null ? 0 : children.size());
+        }
+        artifactsOut.flush();
+        nodesOut.flush();
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.write(digest(key));
+        out.writeInt(strings.values.size());
+        for (String value : strings.values) {
+            out.writeUTF(value);
+        }
+        out.writeInt(artifacts.size());
+        artifactsBuffer.writeTo(out);
+        out.writeInt(nodes.size());
+        nodesBuffer.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Reads a graph.
+     *
+     * @param is
+     *            where read the graph
+     * @param key
+     *            identifies the expected graph
+     * @param size
+     *            the size in bytes of the snapshot, it bounds the size of
+     *            each table
+     * @return the root node or {@code null} if the snapshot is not of the
+     *         expected graph or refers an artifact file that no longer
+     *         exists
+     * @throws IOException
+     *             in case of read failure or malformed snapshot
+     */
+    static DependencyNode read(InputStream is, String key, long size) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            return null;
+        }
+        byte[] expectedKey = digest(key);
+        byte[] snapshotKey = new byte[expectedKey.length];
+        in.readFully(snapshotKey);
+        if (!Arrays.equals(expectedKey, snapshotKey)) {
+            return null;
+        }
+
+        String[] strings = new String[readCount(in, size) + 1];
+        for (int i = 1; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+
+        Artifact[] artifacts = new Artifact[readCount(in, size)];
+        for (int i = 0; i < artifacts.length; i++) {
+            String groupId = readString(in, strings);
+            String artifactId = readString(in, strings);
+            String version = readString(in, strings);
+            String scope = readString(in, strings);
+            String type = readString(in, strings);
+            String classifier = readString(in, strings);
+            String file = readString(in, strings);
+            boolean optional = in.readBoolean();
+            boolean resolved = in.readBoolean();
+            ArtifactHandler handler = new SnapshotArtifactHandler(readString(in, strings), readString(in, strings), readString(in, strings),
+                    readString(in, strings), readString(in, strings), in.readBoolean(), in.readBoolean());
+            Artifact artifact;
+            try {
+                artifact = new DefaultArtifact(groupId, artifactId, version, scope, type, classifier, handler);
+            } catch (InvalidArtifactRTException e) {
+                throw corrupted(e.getMessage());
+            }
+            artifact.setOptional(optional);
+            if (file != null) {
+                File artifactFile = new File(file);
+                if (!artifactFile.exists()) {
+                    return null;
+                }
+                artifact.setFile(artifactFile);
+            }
+            artifact.setResolved(resolved);
+            artifacts[i] = artifact;
+        }
+
+        int nodes = readCount(in, size);
+        DependencyNode rootNode = null;
+        Deque<Frame> stack = new ArrayDeque<>();
+        for (int i = 0; i < nodes; i++) {
+            while (!stack.isEmpty() && stack.peek().remaining == 0) {
+                stack.pop();
+            }
+            Frame parent = stack.peek();
+            if (parent == null && rootNode != null) {
+                throw corrupted("more than one root node");
+            }
+
+            int artifactIndex = in.readInt();
+            if (artifactIndex < 0 || artifactIndex >= artifacts.length) {
+                throw corrupted("artifact index " + artifactIndex + " out of range");
+            }
+            Artifact artifact = artifacts[artifactIndex];
+            String premanagedVersion = readString(in, strings);
+            String premanagedScope = readString(in, strings);
+            String versionConstraint = readString(in, strings);
+            byte optional = in.readByte();
+            int exclusionsSize = in.readInt();
+            List<Exclusion> exclusions = null;
+            if (exclusionsSize != -1) {
+                exclusions = new ArrayList<>(checkCount(exclusionsSize, size));
+                for (int j = 0; j < exclusionsSize; j++) {
+                    Exclusion exclusion = new Exclusion();
+                    exclusion.setGroupId(readString(in, strings));
+                    exclusion.setArtifactId(readString(in, strings));
+                    exclusions.add(exclusion);
+                }
+            }
+            int childrenSize = readCount(in, size);
+
+            DefaultDependencyNode node = new DefaultDependencyNode(parent == null ? null : parent.node, artifact, premanagedVersion, premanagedScope,
+                    versionConstraint, optional == 0 ? null : optional == 2, exclusions);
+            List<DependencyNode> children = new ArrayList<>(childrenSize);
+            node.setChildren(children);
+            if (parent == null) {
+                rootNode = node;
+            } else {
+                parent.children.add(node);
+                parent.remaining--;
+            }
+            stack.push(new Frame(node, children, childrenSize));
+        }
+        for (Frame frame : stack) {
+            if (frame.remaining != 0) {
+                throw corrupted("missing children of " + frame.node.getArtifact());
+            }
+        }
+        if (rootNode == null) {
+            throw corrupted("no root node");
+        }
+        return rootNode;
+    }
+
+    private static int readCount(DataInputStream in, long size) throws IOException {
+        return checkCount(in.readInt(), size);
+    }
+
+    private static int checkCount(int count, long size) throws IOException {
+        // each entry takes at least a byte, a larger count is garbage
+        if (count < 0 || count > size) {
+            throw corrupted("invalid size " + count);
+        }
+        return count;
+    }
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+        int index = in.readInt();
+        if (index < 0 || index >= strings.length) {
+            throw corrupted("string index " + index + " out of range");
+        }
+        return strings[index];
+    }
+
+    private static IOException corrupted(String reason) {
+        return new IOException("corrupt snapshot, " + reason);
+    }
+
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            if (value == null) {
+                return 0;
+            }
+            return indexes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size();
+            });
+        }
+    }
+
+    /**
+     * The artifact handler as it was when the snapshot has been saved, the
+     * handler of a type can not be looked up without the Maven container.
+     */
+    private static final class SnapshotArtifactHandler implements ArtifactHandler {
+        private final String extension;
+        private final String classifier;
+        private final String directory;
+        private final String packaging;
+        private final String language;
+        private final boolean includesDependencies;
+        private final boolean addedToClasspath;
+
+        SnapshotArtifactHandler(String extension, String classifier, String directory, String packaging, String language, boolean includesDependencies,
+                boolean addedToClasspath) {
+            this.extension = extension;
+            this.classifier = classifier;
+            this.directory = directory;
+            this.packaging = packaging;
+            this.language = language;
+            this.includesDependencies = includesDependencies;
+            this.addedToClasspath = addedToClasspath;
+        }
+
+        @Override
+        public String getExtension() {
+            return extension;
+        }
+
+        @Override
+        public String getDirectory() {
+            return directory;
+        }
+
+        @Override
+        public String getClassifier() {
+            return classifier;
+        }
+
+        @Override
+        public String getPackaging() {
+            return packaging;
+        }
+
+        @Override
+        public boolean isIncludesDependencies() {
+            return includesDependencies;
+        }
+
+        @Override
+        public String getLanguage() {
+            return language;
+        }
+
+        @Override
+        public boolean isAddedToClasspath() {
+            return addedToClasspath;
+        }
+    }
+
+    private static class Frame {
+        private final DependencyNode node;
+        private final List<DependencyNode> children;
+        private int remaining;
+
+        Frame(DependencyNode node, List<DependencyNode> children, int remaining) {
+            this.node = node;
+            this.children = children;
+            this.remaining = remaining;
+        }
+    }
+
+}
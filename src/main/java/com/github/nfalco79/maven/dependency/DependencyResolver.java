@@ -17,11 +17,37 @@ package com.github.nfalco79.maven.dependency;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
 import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.logging.Log;
@@ -34,21 +60,55 @@ import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolver;
 import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolverException;
 import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResult;
+import org.eclipse.aether.RepositorySystemSession;
 
+import com.github.nfalco79.maven.artifact.resolver.filter.ArtifactFilterCompiler;
+import com.github.nfalco79.maven.dependency.DependencyResolverListener.Phase;
 import com.github.nfalco79.maven.dependency.graph.BottomUpDependencyVisitor;
 import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession.Mode;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphWalker;
+import com.github.nfalco79.maven.dependency.graph.StreamingBottomUpDependencyVisitor;
 
 /**
  * Utilities for validate resolved dependencies.
  */
 public class DependencyResolver {
 
+    private static final String REMOTE_REPOSITORIES_FILE = "_remote.repositories";
+    private static final String[] PURGE_EXTENSIONS = { ".sha1", ".sha256", ".sha512", ".md5", ".asc", ".lastUpdated" };
+    // file locks are held by the whole JVM, threads must be serialised apart
+    private static final Object TRACKING_FILE_LOCK = new Object();
+    private static final int MAX_EXPECTED_ARTIFACTS = 4096;
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = createTimeoutScheduler();
+
     private MavenSession session;
     private MavenProject project;
     private DependencyGraphBuilder dependencyGraphBuilder;
     private ArtifactFilter filter;
     private Log logger;
     private ArtifactResolver artifactResolver;
+    private int resolverThreads = 1;
+    private boolean collectAllFailures;
+    private boolean verifyChecksums;
+    private final ChecksumValidator checksumValidator = new ChecksumValidator();
+    private File validationCacheFile;
+    private int validationCacheSize = 50000;
+    private ValidationCache validationCache;
+    private boolean asyncPurge;
+    private boolean streamingResolution;
+    private DependencyGraphCache graphCache;
+    private DependencyGraphSnapshot graphSnapshot;
+    private Mode graphMode = Mode.RAW;
+    private int maxGraphDepth;
+    private long maxGraphNodes;
+    private DependencyResolverListener listener = DependencyResolverListener.NOOP;
+    private ExecutionStrategy executionStrategy = new ThreadPoolExecutionStrategy();
+    private boolean indexLocalRepository;
+    private LocalRepositoryIndex localRepositoryIndex;
+    private ExecutorService purgeExecutor;
+    private final List<Future<?>> pendingPurges = new ArrayList<>();
+    private final AtomicBoolean resolving = new AtomicBoolean();
 
     /**
      * Create a new instance for a maven project.
@@ -84,19 +144,86 @@ public class DependencyResolver {
      * @return the dependency node after applying the artifact filter
      * @throws DependencyGraphBuilderException
      *             in case of error building the dependency graph
+     * @throws IllegalStateException
+     *             if a resolution of this resolver is still running
      */
     public DependencyNode resolveDependencies(int maxAttempts) throws DependencyGraphBuilderException {
         if (maxAttempts < 1) {
             throw new IllegalArgumentException("maxAttempts must be greater than 1");
         }
+        startResolution();
+        try {
+            return resolve(maxAttempts);
+        } finally {
+            resolving.set(false);
+        }
+    }
+
+    private void startResolution() {
+        if (!resolving.compareAndSet(false, true)) {
+            throw new IllegalStateException("A dependency resolution is still running for " + getProject().getId());
+        }
+    }
+
+    private DependencyNode resolve(int maxAttempts) throws DependencyGraphBuilderException {
+        DependencyNode rootNode;
+        try {
+            rootNode = doResolveDependencies(maxAttempts);
+        } catch (DependencyGraphBuilderException | RuntimeException e) {
+            listener.resolutionFinished(getProject(), e);
+            throw e;
+        }
+        listener.resolutionFinished(getProject(), null);
+        return rootNode;
+    }
+
+    private DependencyNode doResolveDependencies(int maxAttempts) throws DependencyGraphBuilderException {
+        // the index lives for one resolution, files could be changed outside between resolutions
+        localRepositoryIndex = indexLocalRepository ? new LocalRepositoryIndex() : null;
+        // mode and limits of the graph session are part of cache and snapshot keys
+        DependencyGraphSession graphSession = createGraphSession(getSession().getRepositorySession());
+
+        long start = System.nanoTime();
+        // a cached graph skips only the build, its artifacts are validated with the settings of this resolver
+        DependencyNode cachedNode = graphCache != null ? graphCache.getGraph(getProject(), getFilter(), graphSession) : null;
+        DependencyNode snapshotNode = null;
+        final DependencyNode rootNode;
+        if (cachedNode != null) {
+            listener.graphCacheHit(getProject());
+            rootNode = cachedNode;
+        } else {
+            snapshotNode = loadSnapshot(graphSession);
+            rootNode = snapshotNode != null ? snapshotNode : buildDependencyGraph(graphSession);
+        }
+        listener.phaseCompleted(Phase.GRAPH_BUILD, System.nanoTime() - start, 0);
+
+        start = System.nanoTime();
+        Collection<Artifact> artifacts = streamingResolution ? collectAndResolveArtifacts(rootNode) : collectArtifacts(rootNode);
+        listener.phaseCompleted(Phase.TRAVERSAL, System.nanoTime() - start, artifacts.size());
+
         int count = maxAttempts;
         EmptyArtifactException failure = new EmptyArtifactException();
-        while (count-- > 0) {
-            try {
-                return resolveDependencies();
-            } catch (EmptyArtifactException e) {
-                failure = e;
+        try {
+            while (count-- > 0) {
+                try {
+                    // the graph is kept between attempts, only purged artifacts are resolved again
+                    resolveArtifacts(artifacts);
+                    if (graphCache != null && cachedNode == null) {
+                        graphCache.putGraph(getProject(), getFilter(), graphSession, rootNode, artifacts);
+                    }
+                    if (snapshotNode == null && cachedNode == null) {
+                        saveSnapshot(graphSession, rootNode);
+                    }
+                    return rootNode;
+                } catch (EmptyArtifactException e) {
+                    failure = e;
+                    if (count > 0) {
+                        listener.retry(maxAttempts - count + 1, e);
+                    }
+                }
             }
+        } finally {
+            shutdownPurges();
         }
         throw failure;
     }
@@ -109,35 +236,444 @@ public class DependencyResolver {
      *             in case of error building the dependency graph
      */
     public DependencyNode resolveDependencies() throws DependencyGraphBuilderException {
+        return resolveDependencies(1);
+    }
+
+    /**
+     * Resolve and validate all dependencies of the project in background,
+     * with the same retry semantic of {@link #resolveDependencies(int)}.
+     *
+     * @param maxAttempts
+     *            the number of attempts to resolve dependencies in case of wrong artifact file format
+     * @return the future dependency node after applying the artifact filter
+     * @see #resolveDependenciesAsync(int, long, TimeUnit)
+     */
+    public CompletableFuture<DependencyNode> resolveDependenciesAsync(int maxAttempts) {
+        return resolveDependenciesAsync(maxAttempts, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Resolve and validate all dependencies of the project in background,
+     * with the same retry semantic of {@link #resolveDependencies(int)}.
+     * <p>
+     * Cancelling the returned future, or the expiry of the timeout,
+     * interrupts the resolution and the pending artifact resolutions are not
+     * started. On timeout the returned future completes once the resolution
+     * has stopped, so this resolver could be used again right after. A
+     * cancelled future completes immediately instead, until the resolution
+     * stops this resolver rejects new resolutions with an
+     * {@link IllegalStateException}.
+     *
+     * @param maxAttempts
+     *            the number of attempts to resolve dependencies in case of wrong artifact file format
+     * @param timeout
+     *            the maximum time of the resolution, zero or negative to wait
+     *            without limit
+     * @param unit
+     *            the unit of the timeout
+     * @return the future dependency node after applying the artifact filter.
+     *         It completes exceptionally with the failure of
+     *         {@link #resolveDependencies(int)} or with a
+     *         {@link TimeoutException} when the timeout expires
+     * @throws IllegalStateException
+     *             if a resolution of this resolver is still running
+     */
+    public CompletableFuture<DependencyNode> resolveDependenciesAsync(int maxAttempts, long timeout, TimeUnit unit) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be greater than 1");
+        }
+
+        startResolution();
+        CompletableFuture<DependencyNode> result = new CompletableFuture<>();
+        // the first between the worker and a stop request, the loser gives up
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicReference<TimeoutException> timedOut = new AtomicReference<>();
+        Future<?> task;
+        try {
+            ExecutorService executor = executionStrategy.newExecutor(1);
+            try {
+                task = executor.submit(() -> {
+                    if (!started.compareAndSet(false, true)) {
+                        return;
+                    }
+                    DependencyNode rootNode = null;
+                    Throwable failure = null;
+                    try {
+                        rootNode = resolve(maxAttempts);
+                    } catch (Exception | Error e) {
+                        failure = e;
+                    } finally {
+                        resolving.set(false);
+                    }
+                    completeResolution(result, rootNode, timedOut.get() != null ? timedOut.get() : failure);
+                });
+            } finally {
+                // the thread ends with the resolution
+                executor.shutdown();
+            }
+        } catch (RuntimeException | Error e) {
+            resolving.set(false);
+            throw e;
+        }
 
+        Runnable stop = () -> {
+            if (started.compareAndSet(false, true)) {
+                // never started, nothing to wait for
+                resolving.set(false);
+                completeResolution(result, null, timedOut.get() != null ? timedOut.get() : new CancellationException());
+            } else {
+                // stop pending artifact resolutions, the worker completes the result
+                task.cancel(true);
+            }
+        };
+        if (timeout > 0) {
+            ScheduledFuture<?> timer = TIMEOUT_SCHEDULER.schedule(() -> {
+                timedOut.compareAndSet(null, new TimeoutException("dependency resolution has not completed in " + timeout + " " + unit));
+                stop.run();
+            }, timeout, unit);
+            result.whenComplete((node, failure) -> timer.cancel(false));
+        }
+        result.whenComplete((node, failure) -> {
+            if (failure instanceof CancellationException) {
+                stop.run();
+            }
+        });
+        return result;
+    }
+
+    private static void completeResolution(CompletableFuture<DependencyNode> result, DependencyNode rootNode, Throwable failure) {
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(rootNode);
+        }
+    }
+
+    private DependencyNode loadSnapshot(RepositorySystemSession graphSession) {
+        if (graphSnapshot == null) {
+            return null;
+        }
         try {
-            ProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest(getSession().getProjectBuildingRequest());
-            buildingRequest.setProject(getProject());
-            buildingRequest.setRepositorySession(new DependencyGraphSession(getSession().getRepositorySession()));
-            final DependencyNode rootNode = getDependencyGraphBuilder().buildDependencyGraph(buildingRequest, getFilter());
+            return graphSnapshot.load(getProject(), getFilter(), graphSession);
+        } catch (IOException e) {
+            getLogger().warn("Fail to load dependency graph snapshot, graph will be built again", e);
+            return null;
+        }
+    }
+
+    private void saveSnapshot(RepositorySystemSession graphSession, DependencyNode rootNode) {
+        if (graphSnapshot == null) {
+            return;
+        }
+        try {
+            graphSnapshot.save(getProject(), getFilter(), graphSession, rootNode);
+        } catch (IOException e) {
+            getLogger().warn("Fail to save dependency graph snapshot", e);
+        }
+    }
 
-            BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
-            rootNode.accept(visitor);
+    private DependencyNode buildDependencyGraph(RepositorySystemSession graphSession) throws DependencyGraphBuilderException {
+        ProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest(getSession().getProjectBuildingRequest());
+        buildingRequest.setProject(getProject());
+        buildingRequest.setRepositorySession(graphSession);
+        // the filter is called for each node of the graph
+        return getDependencyGraphBuilder().buildDependencyGraph(buildingRequest, ArtifactFilterCompiler.compile(getFilter()));
+    }
 
-            Collection<Artifact> artifacts = visitor.getNodes().stream() //
+    /**
+     * Creates the repository session used to build the dependency graph with
+     * the configured graph mode and limits. By default the graph is raw and
+     * unbounded.
+     *
+     * @param session
+     *            the repository session of the build
+     * @return the repository session to build the graph
+     */
+    protected DependencyGraphSession createGraphSession(RepositorySystemSession session) {
+        DependencyGraphSession graphSession = new DependencyGraphSession(session, graphMode);
+        graphSession.setMaxDepth(maxGraphDepth);
+        graphSession.setMaxNodes(maxGraphNodes);
+        return graphSession;
+    }
+
+    private Collection<Artifact> collectArtifacts(DependencyNode rootNode) {
+        // distinct artifacts are never more than nodes, larger graphs let the visitor grow
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor(DependencyGraphWalker.count(rootNode, MAX_EXPECTED_ARTIFACTS));
+        // the graph comes from the dependency collector, repeated subtrees are identical
+        visitor.setSkipVisitedSubtrees(true);
+        DependencyGraphWalker.walk(rootNode, visitor);
+
+        return visitor.getNodes().stream() //
+                .filter(a -> a != rootNode.getArtifact()) // remove project artifact
+                .collect(Collectors.toList());
+    }
+
+    private Collection<Artifact> collectAndResolveArtifacts(DependencyNode rootNode) throws DependencyGraphBuilderException {
+        ExecutorService executor = executionStrategy.newExecutor(resolverThreads);
+        try {
+            CompletionService<Artifact> completionService = new ExecutorCompletionService<>(executor);
+            AtomicInteger submitted = new AtomicInteger();
+            StreamingBottomUpDependencyVisitor visitor = new StreamingBottomUpDependencyVisitor(artifact -> {
+                if (artifact != rootNode.getArtifact() && artifact.getFile() == null && !resolveFromCache(artifact)) {
+                    // the version of this artifact is final, download while the graph is still visited
+                    completionService.submit(() -> {
+                        execute(this::resolveArtifact, artifact);
+                        return artifact;
+                    });
+                    submitted.incrementAndGet();
+                }
+            });
+            visitor.setSkipVisitedSubtrees(true);
+            visitor.walk(rootNode);
+            await(completionService, submitted.get());
+
+            return visitor.getNodes().stream() //
                     .filter(a -> a != rootNode.getArtifact()) // remove project artifact
                     .collect(Collectors.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            for (Artifact artifact : artifacts) {
-                File artifactFile = artifact.getFile();
-                if (artifactFile == null) {
-                    resolveArtifact(artifact);
-                    continue;
+    private void resolveArtifacts(Collection<Artifact> artifacts) throws DependencyGraphBuilderException {
+        List<Artifact> missingArtifacts = new ArrayList<>();
+        List<Artifact> resolvedArtifacts = new ArrayList<>();
+        List<EmptyArtifactException> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (Artifact artifact : artifacts) {
+            if (artifact.getFile() == null) {
+                // artifacts from cache has been already validated by a previous module
+                if (!resolveFromCache(artifact)) {
+                    missingArtifacts.add(artifact);
                 }
+            } else {
+                validateArtifact(artifact, resolvedArtifacts, failures);
+            }
+        }
 
-                if (artifactFile.length() == 0) {
-                    removeResolvedArtifact(artifact);
-                    throw new EmptyArtifactException(artifact);
-                }
+        long validationTime = System.nanoTime() - start;
+
+        // purged files must be gone before they are downloaded again
+        awaitPurges();
+
+        start = System.nanoTime();
+        execute(missingArtifacts, resolverThreads, this::resolveArtifact);
+        listener.phaseCompleted(Phase.RESOLUTION, System.nanoTime() - start, missingArtifacts.size());
+
+        start = System.nanoTime();
+        for (Artifact artifact : missingArtifacts) {
+            validateArtifact(artifact, resolvedArtifacts, failures);
+        }
+        if (verifyChecksums) {
+            verifyChecksums(resolvedArtifacts, failures);
+        }
+        listener.phaseCompleted(Phase.VALIDATION, validationTime + System.nanoTime() - start, resolvedArtifacts.size());
+
+        if (!failures.isEmpty()) {
+            purgeArtifacts(failures.stream() //
+                    .flatMap(f -> f.getArtifacts().stream()) //
+                    .collect(Collectors.toList()));
+            throw failures.size() == 1 ? failures.get(0) : new EmptyArtifactException(failures);
+        }
+    }
+
+    private boolean resolveFromCache(Artifact artifact) {
+        File file = graphCache != null ? graphCache.getFile(artifact) : null;
+        if (file != null) {
+            artifact.setFile(file);
+        }
+        return file != null;
+    }
+
+    private void validateArtifact(Artifact artifact, List<Artifact> resolvedArtifacts, List<EmptyArtifactException> failures) throws DependencyGraphBuilderException {
+        File artifactFile = artifact.getFile();
+        if (artifactFile == null) {
+            return;
+        }
+        long length = localRepositoryIndex != null ? localRepositoryIndex.length(artifactFile) : artifactFile.length();
+        listener.artifactValidated(artifact, length);
+        if (length == 0) {
+            reportFailure(new EmptyArtifactException(artifact), failures);
+        } else {
+            resolvedArtifacts.add(artifact);
+        }
+    }
+
+    private void verifyChecksums(List<Artifact> artifacts, List<EmptyArtifactException> failures) throws DependencyGraphBuilderException {
+        ValidationCache cache = getValidationCache();
+        if (cache != null) {
+            cache.setLocalRepositoryIndex(localRepositoryIndex);
+        }
+        Set<Artifact> corruptedArtifacts = ConcurrentHashMap.newKeySet();
+        execute(artifacts, Runtime.getRuntime().availableProcessors(), artifact -> {
+            if (!checksumValidator.isValid(artifact.getFile(), cache)) {
+                corruptedArtifacts.add(artifact);
+            }
+        });
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException e) {
+                // the cache is an optimisation, validation result is still good
+                getLogger().warn("Fail to update validation cache " + validationCacheFile, e);
             }
-            return rootNode;
+        }
+
+        // report in the same bottom-up order of the artifacts
+        for (Artifact artifact : artifacts) {
+            if (corruptedArtifacts.contains(artifact)) {
+                reportFailure(new CorruptedArtifactException(artifact), failures);
+            }
+        }
+    }
+
+    private ValidationCache getValidationCache() throws DependencyGraphBuilderException {
+        if (validationCacheFile == null) {
+            return null;
+        }
+        if (validationCache == null) {
+            validationCache = new ValidationCache(validationCacheFile, validationCacheSize);
+            try {
+                validationCache.load();
+            } catch (IOException e) {
+                throw new DependencyGraphBuilderException("can not read validation cache " + validationCacheFile, e);
+            }
+        }
+        return validationCache;
+    }
+
+    private void reportFailure(EmptyArtifactException failure, List<EmptyArtifactException> failures) throws DependencyGraphBuilderException {
+        if (!collectAllFailures) {
+            purgeArtifacts(failure.getArtifacts());
+            throw failure;
+        }
+        failures.add(failure);
+    }
+
+    private void purgeArtifacts(List<Artifact> artifacts) throws DependencyGraphBuilderException {
+        long start = System.nanoTime();
+        for (Artifact artifact : artifacts) {
+            purgeArtifact(artifact);
+        }
+        if (!asyncPurge) {
+            // asynchronous purges are reported when they are awaited
+            listener.phaseCompleted(Phase.PURGE, System.nanoTime() - start, artifacts.size());
+        }
+    }
+
+    private void purgeArtifact(Artifact artifact) throws DependencyGraphBuilderException {
+        listener.artifactPurged(artifact);
+        if (asyncPurge) {
+            if (purgeExecutor == null) {
+                purgeExecutor = executionStrategy.newExecutor(1);
+            }
+            // the copy keeps the file that will be reset below
+            Artifact purgedArtifact = ArtifactUtils.copyArtifact(artifact);
+            pendingPurges.add(purgeExecutor.submit(() -> {
+                removeResolvedArtifact(purgedArtifact);
+                return null;
+            }));
+        } else {
+            try {
+                removeResolvedArtifact(artifact);
+            } catch (IOException e) {
+                throw new DependencyGraphBuilderException(e.getMessage(), e);
+            }
+        }
+        if (localRepositoryIndex != null && artifact.getFile() != null) {
+            localRepositoryIndex.invalidate(artifact.getFile());
+        }
+        if (graphCache != null) {
+            // an asynchronous purge could leave the broken file for a while
+            graphCache.removeFile(artifact);
+        }
+        // resolve it again at next attempt
+        artifact.setFile(null);
+    }
+
+    private void awaitPurges() throws DependencyGraphBuilderException {
+        if (pendingPurges.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int purges = pendingPurges.size();
+        try {
+            for (Future<?> purge : pendingPurges) {
+                purge.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyGraphBuilderException("artifact purge has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new DependencyGraphBuilderException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            pendingPurges.clear();
+        }
+        listener.phaseCompleted(Phase.PURGE, System.nanoTime() - start, purges);
+    }
+
+    private void shutdownPurges() throws DependencyGraphBuilderException {
+        if (purgeExecutor != null) {
+            try {
+                awaitPurges();
+            } finally {
+                purgeExecutor.shutdown();
+                purgeExecutor = null;
+            }
+        }
+    }
+
+    private void execute(List<Artifact> artifacts, int threads, ArtifactTask task) throws DependencyGraphBuilderException {
+        if (threads <= 1 || artifacts.size() <= 1) {
+            for (Artifact artifact : artifacts) {
+                execute(task, artifact);
+            }
+            return;
+        }
+
+        ExecutorService executor = executionStrategy.newExecutor(Math.min(threads, artifacts.size()));
+        try {
+            CompletionService<Artifact> completionService = new ExecutorCompletionService<>(executor);
+            for (Artifact artifact : artifacts) {
+                completionService.submit(() -> {
+                    execute(task, artifact);
+                    return artifact;
+                });
+            }
+            await(completionService, artifacts.size());
+        } finally {
+            // fail fast, pending tasks are cancelled on first error
+            executor.shutdownNow();
+        }
+    }
+
+    private void await(CompletionService<Artifact> completionService, int tasks) throws DependencyGraphBuilderException {
+        try {
+            for (int i = 0; i < tasks; i++) {
+                completionService.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyGraphBuilderException("artifact resolution has been interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DependencyGraphBuilderException) {
+                throw (DependencyGraphBuilderException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DependencyGraphBuilderException(cause.getMessage(), cause);
+        }
+    }
+
+    private void execute(ArtifactTask task, Artifact artifact) throws DependencyGraphBuilderException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new DependencyGraphBuilderException("artifact resolution has been interrupted");
+        }
+        try {
+            task.execute(artifact);
         } catch (IOException e) {
-            throw new DependencyGraphBuilderException(e.getMessage(), e);
+            throw new DependencyGraphBuilderException("can not process artifact " + artifact.toString(), e);
         }
     }
 
@@ -145,17 +681,419 @@ public class DependencyResolver {
         try {
             ArtifactResult result = artifactResolver.resolveArtifact(getSession().getProjectBuildingRequest(), artifact);
             artifact.setFile(result.getArtifact().getFile());
+            if (localRepositoryIndex != null && artifact.getFile() != null) {
+                localRepositoryIndex.invalidate(artifact.getFile());
+            }
         } catch (IllegalArgumentException | ArtifactResolverException e) {
             throw new DependencyGraphBuilderException("can not resolve artifact " + artifact.toString(), e);
         }
     }
 
+    /**
+     * Removes the given artifact file from the local repository together with
+     * its checksums and the resolver tracking data, so that it is downloaded
+     * again at next resolution. Other files of the same artifact version, like
+     * the POM or other classifiers, are kept.
+     *
+     * @param artifact
+     *            to remove
+     * @throws IOException
+     *             in case of failure deleting files
+     */
     protected void removeResolvedArtifact(Artifact artifact) throws IOException {
         File artifactFile = artifact.getFile();
         if (artifactFile != null) {
             // retry to download artifact next resolution time
-            FileUtils.deleteDirectory(artifactFile.getParentFile());
+            File folder = artifactFile.getParentFile();
+            String fileName = artifactFile.getName();
+            Files.deleteIfExists(artifactFile.toPath());
+            for (String extension : PURGE_EXTENSIONS) {
+                Files.deleteIfExists(new File(folder, fileName + extension).toPath());
+            }
+            removeTrackingEntry(new File(folder, REMOTE_REPOSITORIES_FILE), fileName);
+        }
+    }
+
+    private void removeTrackingEntry(File trackingFile, String fileName) throws IOException {
+        if (!trackingFile.isFile()) {
+            return;
+        }
+        // entries are in the form <file name>><repository id>=
+        String prefix = fileName + '>';
+        synchronized (TRACKING_FILE_LOCK) {
+            // Maven locks the tracking file itself and rewrites it in place, do the same to exclude concurrent builds
+            try (FileChannel channel = FileChannel.open(trackingFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE); //
+                    FileLock lock = channel.lock()) {
+                ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+                int read = 0;
+                while (content.hasRemaining() && read != -1) {
+                    read = channel.read(content);
+                }
+                List<String> lines = Arrays.asList(new String(content.array(), 0, content.position(), StandardCharsets.UTF_8).split("\\R"));
+                List<String> keptLines = lines.stream().filter(l -> !l.startsWith(prefix)).collect(Collectors.toList());
+                if (keptLines.size() != lines.size()) {
+                    StringBuilder kept = new StringBuilder();
+                    keptLines.forEach(l -> kept.append(l).append(System.lineSeparator()));
+                    ByteBuffer buffer = ByteBuffer.wrap(kept.toString().getBytes(StandardCharsets.UTF_8));
+                    channel.truncate(0);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of threads used to resolve missing artifacts.
+     *
+     * @return the number of resolver threads
+     */
+    public int getResolverThreads() {
+        return resolverThreads;
+    }
+
+    /**
+     * Set the number of threads used to resolve missing artifacts. A value
+     * greater than 1 enables the concurrent resolution of artifacts, at the
+     * first failure all pending resolutions are cancelled.
+     *
+     * @param resolverThreads
+     *            the number of resolver threads to set
+     */
+    public void setResolverThreads(int resolverThreads) {
+        if (resolverThreads < 1) {
+            throw new IllegalArgumentException("resolverThreads must be greater than 0");
+        }
+        this.resolverThreads = resolverThreads;
+    }
+
+    /**
+     * Returns if the validation checks all artifacts before fail.
+     *
+     * @return {@code true} if all broken artifacts are reported together,
+     *         {@code false} if the validation stops at the first broken
+     *         artifact
+     */
+    public boolean isCollectAllFailures() {
+        return collectAllFailures;
+    }
+
+    /**
+     * Set if the validation checks all artifacts before fail. When enabled all
+     * broken artifacts are purged together and reported by a single
+     * {@link EmptyArtifactException}, so that a retry resolves them again in
+     * one batch.
+     *
+     * @param collectAllFailures
+     *            {@code true} to report all broken artifacts together
+     */
+    public void setCollectAllFailures(boolean collectAllFailures) {
+        this.collectAllFailures = collectAllFailures;
+    }
+
+    /**
+     * Returns if artifact files are verified against their checksum files.
+     *
+     * @return {@code true} if checksums are verified
+     */
+    public boolean isVerifyChecksums() {
+        return verifyChecksums;
+    }
+
+    /**
+     * Set if artifact files are verified against the {@code .sha256} or
+     * {@code .sha1} files stored beside them in the local repository. A file
+     * that does not match is purged and reported by a
+     * {@link CorruptedArtifactException}.
+     *
+     * @param verifyChecksums
+     *            {@code true} to verify checksums
+     */
+    public void setVerifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    /**
+     * The file of the validation cache.
+     *
+     * @return the validation cache file, {@code null} if the cache is disabled
+     */
+    public File getValidationCacheFile() {
+        return validationCacheFile;
+    }
+
+    /**
+     * Set the file where are recorded the artifacts whose checksum has been
+     * already verified, keyed by path, size and last modified time. An
+     * unchanged artifact is not verified again. The file could be shared
+     * between concurrent builds, usually it is stored in the local repository.
+     *
+     * @param validationCacheFile
+     *            the validation cache file, {@code null} to disable the cache
+     * @see #setVerifyChecksums(boolean)
+     */
+    public void setValidationCacheFile(File validationCacheFile) {
+        this.validationCacheFile = validationCacheFile;
+        this.validationCache = null;
+    }
+
+    /**
+     * The maximum number of entries kept in the validation cache.
+     *
+     * @return the maximum size of the validation cache
+     */
+    public int getValidationCacheSize() {
+        return validationCacheSize;
+    }
+
+    /**
+     * Set the maximum number of entries kept in the validation cache, the
+     * least recently validated artifacts are evicted first.
+     *
+     * @param validationCacheSize
+     *            the maximum size of the validation cache
+     */
+    public void setValidationCacheSize(int validationCacheSize) {
+        if (validationCacheSize < 1) {
+            throw new IllegalArgumentException("validationCacheSize must be greater than 0");
         }
+        this.validationCacheSize = validationCacheSize;
+        this.validationCache = null;
+    }
+
+    /**
+     * Returns if broken artifacts are removed from the local repository in
+     * background.
+     *
+     * @return {@code true} if purge is asynchronous
+     */
+    public boolean isAsyncPurge() {
+        return asyncPurge;
+    }
+
+    /**
+     * Set if broken artifacts are removed from the local repository in
+     * background while the validation of other artifacts goes on. Pending
+     * removals are awaited before the artifacts are resolved again.
+     *
+     * @param asyncPurge
+     *            {@code true} to purge artifacts in background
+     */
+    public void setAsyncPurge(boolean asyncPurge) {
+        this.asyncPurge = asyncPurge;
+    }
+
+    /**
+     * Returns if artifacts are resolved while the dependency graph is
+     * visited.
+     *
+     * @return {@code true} if resolution is pipelined with the graph visit
+     */
+    public boolean isStreamingResolution() {
+        return streamingResolution;
+    }
+
+    /**
+     * Set if an artifact is resolved as soon as its version is final during
+     * the visit of the dependency graph, instead of waiting the end of the
+     * visit. Downloads overlap the visit of the rest of the graph, useful on
+     * cold local repositories. Resolver threads are given by
+     * {@link #setResolverThreads(int)}.
+     *
+     * @param streamingResolution
+     *            {@code true} to resolve artifacts during the graph visit
+     */
+    public void setStreamingResolution(boolean streamingResolution) {
+        this.streamingResolution = streamingResolution;
+    }
+
+    /**
+     * Returns the cache of dependency graphs and artifacts shared between
+     * modules.
+     *
+     * @return the graph cache, {@code null} if not set
+     */
+    public DependencyGraphCache getGraphCache() {
+        return graphCache;
+    }
+
+    /**
+     * Set the cache of dependency graphs and resolved artifacts to share
+     * between the modules of a reactor build, usually obtained by
+     * {@link DependencyGraphCache#getInstance(org.eclipse.aether.RepositorySystemSession)}.
+     * When a graph of the project is cached it is not built again, but its
+     * artifacts are still validated as configured in this resolver.
+     *
+     * @param graphCache
+     *            the cache, {@code null} to disable it
+     */
+    public void setGraphCache(DependencyGraphCache graphCache) {
+        this.graphCache = graphCache;
+    }
+
+    /**
+     * Returns the on-disk store of dependency graph snapshots.
+     *
+     * @return the graph snapshot store, {@code null} if not set
+     */
+    public DependencyGraphSnapshot getGraphSnapshot() {
+        return graphSnapshot;
+    }
+
+    /**
+     * Set the on-disk store of dependency graph snapshots. The graph of an
+     * unchanged project is loaded from its snapshot instead of being built
+     * again, the artifacts are still validated. Graphs with SNAPSHOT
+     * artifacts or version ranges are always built.
+     *
+     * @param graphSnapshot
+     *            the snapshot store, {@code null} to disable it
+     */
+    public void setGraphSnapshot(DependencyGraphSnapshot graphSnapshot) {
+        this.graphSnapshot = graphSnapshot;
+    }
+
+    /**
+     * Returns the kind of dependency graph built for the project.
+     *
+     * @return the graph mode
+     */
+    public Mode getGraphMode() {
+        return graphMode;
+    }
+
+    /**
+     * Set the kind of dependency graph built for the project. A
+     * {@link Mode#CONFLICT_MARKED} graph keeps only the nodes that take part
+     * in a version conflict and it is much smaller than a
+     * {@link Mode#RAW} graph.
+     *
+     * @param graphMode
+     *            the graph mode
+     */
+    public void setGraphMode(Mode graphMode) {
+        if (graphMode == null) {
+            throw new IllegalArgumentException("graphMode is required");
+        }
+        this.graphMode = graphMode;
+    }
+
+    /**
+     * Returns the maximum depth of the dependency graph.
+     *
+     * @return the maximum depth, 0 if unbounded
+     */
+    public int getMaxGraphDepth() {
+        return maxGraphDepth;
+    }
+
+    /**
+     * Set the maximum depth of the dependency graph, the resolution fails if
+     * the graph is deeper.
+     *
+     * @param maxGraphDepth
+     *            the maximum depth, 0 for unbounded
+     */
+    public void setMaxGraphDepth(int maxGraphDepth) {
+        if (maxGraphDepth < 0) {
+            throw new IllegalArgumentException("maxGraphDepth must not be negative");
+        }
+        this.maxGraphDepth = maxGraphDepth;
+    }
+
+    /**
+     * Returns the maximum number of nodes of the dependency graph.
+     *
+     * @return the maximum number of nodes, 0 if unbounded
+     */
+    public long getMaxGraphNodes() {
+        return maxGraphNodes;
+    }
+
+    /**
+     * Set the maximum number of nodes of the dependency graph, the
+     * resolution fails if the graph has more nodes.
+     *
+     * @param maxGraphNodes
+     *            the maximum number of nodes, 0 for unbounded
+     */
+    public void setMaxGraphNodes(long maxGraphNodes) {
+        if (maxGraphNodes < 0) {
+            throw new IllegalArgumentException("maxGraphNodes must not be negative");
+        }
+        this.maxGraphNodes = maxGraphNodes;
+    }
+
+    /**
+     * Returns if the local repository is indexed during the resolution.
+     *
+     * @return {@code true} if each artifact folder is listed once
+     */
+    public boolean isIndexLocalRepository() {
+        return indexLocalRepository;
+    }
+
+    /**
+     * Set if the size and the last modified time of artifact files are read
+     * listing each artifact folder once, instead of a metadata request for
+     * each file. Useful when the local repository is on a network file
+     * system, where each request is a round trip. On a local disk metadata
+     * requests are cheap and listing folders is slower, so it is disabled by
+     * default.
+     *
+     * @param indexLocalRepository
+     *            {@code false} to read metadata from each file
+     */
+    public void setIndexLocalRepository(boolean indexLocalRepository) {
+        this.indexLocalRepository = indexLocalRepository;
+    }
+
+    /**
+     * Returns the strategy that runs the resolution and validation tasks.
+     *
+     * @return the execution strategy
+     */
+    public ExecutionStrategy getExecutionStrategy() {
+        return executionStrategy;
+    }
+
+    /**
+     * Set the strategy that runs the resolution and validation tasks. By
+     * default a pool of platform threads is used, on Java 21 or later
+     * {@link VirtualThreadExecutionStrategy} allows an higher number of
+     * {@link #setResolverThreads(int) resolver threads} without their cost.
+     * On older JVMs it falls back to a pool of platform threads.
+     *
+     * @param executionStrategy
+     *            the execution strategy, {@code null} to use a thread pool
+     */
+    public void setExecutionStrategy(ExecutionStrategy executionStrategy) {
+        if (executionStrategy instanceof VirtualThreadExecutionStrategy && !VirtualThreadExecutionStrategy.isSupported()) {
+            getLogger().warn("Virtual threads require Java 21 or later, artifacts are resolved by a pool of platform threads");
+        }
+        this.executionStrategy = executionStrategy != null ? executionStrategy : new ThreadPoolExecutionStrategy();
+    }
+
+    /**
+     * Returns the listener of the resolution phases.
+     *
+     * @return the listener, never {@code null}
+     */
+    public DependencyResolverListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Set the listener notified of the duration of each resolution phase,
+     * the validated artifacts, the retries and the purged artifacts. See
+     * {@link JsonSummaryListener} to write a summary per project.
+     *
+     * @param listener
+     *            the listener, {@code null} to disable it
+     */
+    public void setListener(DependencyResolverListener listener) {
+        this.listener = listener != null ? listener : DependencyResolverListener.NOOP;
     }
 
     /**
@@ -253,4 +1191,20 @@ public class DependencyResolver {
         this.logger = logger;
     }
 
+    private static ScheduledExecutorService createTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "dependency-resolver-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // most resolutions complete before their timeout
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    @FunctionalInterface
+    private interface ArtifactTask {
+        void execute(Artifact artifact) throws DependencyGraphBuilderException, IOException;
+    }
+
 }
\ No newline at end of file
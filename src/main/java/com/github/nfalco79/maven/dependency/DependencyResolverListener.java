@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Receives the progress of {@link DependencyResolver} to measure where the
+ * time of a resolution is spent.
+ * <p>
+ * Methods could be called by many threads at the same time. All methods do
+ * nothing by default.
+ */
+public interface DependencyResolverListener {
+
+    /**
+     * A listener that ignores all events.
+     */
+    DependencyResolverListener NOOP = new DependencyResolverListener() {
+    };
+
+    /**
+     * The phases of a dependency resolution. Resolution, validation and purge
+     * repeat at each attempt.
+     */
+    enum Phase {
+        /**
+         * Build or load of the dependency graph.
+         */
+        GRAPH_BUILD,
+        /**
+         * Visit of the dependency graph to collect the artifacts. With
+         * streaming resolution it includes the resolution of artifacts.
+         */
+        TRAVERSAL,
+        /**
+         * Resolution of the artifact files.
+         */
+        RESOLUTION,
+        /**
+         * Validation of the artifact files.
+         */
+        VALIDATION,
+        /**
+         * Removal of broken artifacts from the local repository. Asynchronous
+         * removals are reported when they are awaited.
+         */
+        PURGE
+    }
+
+    /**
+     * Called when a phase has been completed.
+     *
+     * @param phase
+     *            the completed phase
+     * @param durationNanos
+     *            the duration of the phase in nanoseconds
+     * @param artifacts
+     *            the number of artifacts processed in the phase
+     */
+    default void phaseCompleted(Phase phase, long durationNanos, int artifacts) {
+    }
+
+    /**
+     * Called when the dependency graph of the project is served by the
+     * {@link DependencyGraphCache} instead of being built. The artifacts of
+     * the graph are still validated.
+     *
+     * @param project
+     *            the project
+     */
+    default void graphCacheHit(MavenProject project) {
+    }
+
+    /**
+     * Called when an artifact file has been validated.
+     *
+     * @param artifact
+     *            the artifact
+     * @param bytes
+     *            the size of the validated file
+     */
+    default void artifactValidated(Artifact artifact, long bytes) {
+    }
+
+    /**
+     * Called when a broken artifact is removed from the local repository.
+     *
+     * @param artifact
+     *            the broken artifact
+     */
+    default void artifactPurged(Artifact artifact) {
+    }
+
+    /**
+     * Called when a resolution attempt failed and a new one starts.
+     *
+     * @param attempt
+     *            the number of the new attempt, starting from 2
+     * @param failure
+     *            the failure of the previous attempt
+     */
+    default void retry(int attempt, EmptyArtifactException failure) {
+    }
+
+    /**
+     * Called when the resolution of the project dependencies is finished.
+     *
+     * @param project
+     *            the project
+     * @param failure
+     *            the failure of the resolution, {@code null} if successful
+     */
+    default void resolutionFinished(MavenProject project, Throwable failure) {
+    }
+
+}
@@ -15,6 +15,11 @@
  */
 package com.github.nfalco79.maven.dependency;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.apache.maven.artifact.Artifact;
 
 /**
@@ -23,11 +28,16 @@ import org.apache.maven.artifact.Artifact;
 @SuppressWarnings("serial")
 public class EmptyArtifactException extends RuntimeException {
 
+    private final transient List<Artifact> artifacts;
+    private final transient List<EmptyArtifactException> failures;
+
     /**
      * Default constructor.
      */
     EmptyArtifactException() {
         // used internally, never throw to caller
+        artifacts = Collections.emptyList();
+        failures = Collections.emptyList();
     }
 
     /**
@@ -38,6 +48,59 @@ public class EmptyArtifactException extends RuntimeException {
      */
     public EmptyArtifactException(Artifact artifact) {
         super("Fail to download artifact " + artifact.toString() + ", size is 0");
+        artifacts = Collections.singletonList(artifact);
+        failures = Collections.emptyList();
+    }
+
+    /**
+     * Constructs a new exception with the specified detail message for the
+     * given artifact.
+     *
+     * @param message the detail message.
+     * @param artifact is not able to resolve.
+     */
+    protected EmptyArtifactException(String message, Artifact artifact) {
+        super(message);
+        artifacts = Collections.singletonList(artifact);
+        failures = Collections.emptyList();
+    }
+
+    /**
+     * Constructs a new exception that reports all failures found in the same
+     * validation pass. Each failure is kept as suppressed exception and its
+     * reason is part of the detail message.
+     *
+     * @param failures the failure of each broken artifact.
+     */
+    public EmptyArtifactException(List<? extends EmptyArtifactException> failures) {
+        super(failures.stream() //
+                .map(Throwable::getMessage) //
+                .collect(Collectors.joining("; ", "Fail to download " + failures.size() + " artifacts: ", "")));
+        this.artifacts = Collections.unmodifiableList(failures.stream() //
+                .flatMap(f -> f.getArtifacts().stream()) //
+                .collect(Collectors.toList()));
+        this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+        failures.forEach(this::addSuppressed);
+    }
+
+    /**
+     * Returns the artifacts that are not able to resolve.
+     *
+     * @return an unmodifiable list of the broken artifacts
+     */
+    public List<Artifact> getArtifacts() {
+        return artifacts;
+    }
+
+    /**
+     * Returns the failure of each broken artifact, for example to tell an
+     * empty file from a {@link CorruptedArtifactException}.
+     *
+     * @return an unmodifiable list of failures, this exception when it
+     *         reports a single failure
+     */
+    public List<EmptyArtifactException> getFailures() {
+        return failures.isEmpty() ? Collections.singletonList(this) : failures;
     }
 
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates the executors that run the resolution and the validation of
+ * artifacts in {@link DependencyResolver}.
+ *
+ * @see ThreadPoolExecutionStrategy
+ * @see VirtualThreadExecutionStrategy
+ */
+public interface ExecutionStrategy {
+
+    /**
+     * Creates an executor that runs at most the given number of tasks at the
+     * same time. The caller shuts down the executor when its tasks are done.
+     *
+     * @param parallelism
+     *            the maximum number of tasks running at the same time
+     * @return a new executor
+     */
+    ExecutorService newExecutor(int parallelism);
+
+}
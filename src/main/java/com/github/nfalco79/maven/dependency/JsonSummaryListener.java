@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * A listener that writes a JSON summary of the dependency resolution of a
+ * project, with the duration and the number of artifacts of each phase, the
+ * graph cache hits, the validated bytes, the retries and the purged
+ * artifacts.
+ */
+public class JsonSummaryListener implements DependencyResolverListener {
+
+    private final File summaryFile;
+    private final Map<Phase, long[]> phases = new EnumMap<>(Phase.class);
+    private int graphCacheHits;
+    private long bytesValidated;
+    private int artifactsValidated;
+    private int purges;
+    private int retries;
+
+    /**
+     * Default constructor.
+     *
+     * @param summaryFile
+     *            where write the summary, usually in the build directory of the
+     *            project
+     */
+    public JsonSummaryListener(File summaryFile) {
+        this.summaryFile = summaryFile;
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new long[2]);
+        }
+    }
+
+    @Override
+    public synchronized void phaseCompleted(Phase phase, long durationNanos, int artifacts) {
+        long[] stats = phases.get(phase);
+        stats[0] += durationNanos;
+        stats[1] += artifacts;
+    }
+
+    @Override
+    public synchronized void graphCacheHit(MavenProject project) {
+        graphCacheHits++;
+    }
+
+    @Override
+    public synchronized void artifactValidated(Artifact artifact, long bytes) {
+        artifactsValidated++;
+        bytesValidated += bytes;
+    }
+
+    @Override
+    public synchronized void artifactPurged(Artifact artifact) {
+        purges++;
+    }
+
+    @Override
+    public synchronized void retry(int attempt, EmptyArtifactException failure) {
+        retries++;
+    }
+
+    @Override
+    public synchronized void resolutionFinished(MavenProject project, Throwable failure) {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\n");
+        json.append("  \"project\": ").append(quote(project.getGroupId() + ':' + project.getArtifactId() + ':' + project.getVersion())).append(",\n");
+        json.append("  \"success\": ").append(failure == null).append(",\n");
+        if (failure != null) {
+            json.append("  \"failure\": ").append(quote(String.valueOf(failure.getMessage()))).append(",\n");
+        }
+        json.append("  \"phases\": {\n");
+        String separator = "";
+        for (Map.Entry<Phase, long[]> entry : phases.entrySet()) {
+            json.append(separator).append("    ").append(quote(entry.getKey().name().toLowerCase())) //
+                    .append(": { \"durationMs\": ").append(entry.getValue()[0] / 1000000) //
+                    .append(", \"artifacts\": ").append(entry.getValue()[1]).append(" }");
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"graphCacheHits\": ").append(graphCacheHits).append(",\n");
+        json.append("  \"artifactsValidated\": ").append(artifactsValidated).append(",\n");
+        json.append("  \"bytesValidated\": ").append(bytesValidated).append(",\n");
+        json.append("  \"retries\": ").append(retries).append(",\n");
+        json.append("  \"purges\": ").append(purges).append('\n');
+        json.append("}\n");
+
+        try {
+            Files.createDirectories(summaryFile.getAbsoluteFile().getParentFile().toPath());
+            try (Writer writer = Files.newBufferedWriter(summaryFile.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(json.toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fail to write resolution summary " + summaryFile, e);
+        }
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+            case '"':
+            case '\\':
+                sb.append('\\').append(c);
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Index of the size and the last modified time of the files in the local
+ * repository.
+ * <p>
+ * The folder of an artifact version holds the artifact with its pom, checksum
+ * and tracking files. The first request for one of them lists the whole folder
+ * once, later requests are answered from memory instead of a metadata call for
+ * each file, that is slow on network file systems. On a local disk the
+ * metadata of each file are cached by the kernel and listing folders is
+ * slower. A folder changed by a download or a purge must be
+ * {@link #invalidate(File) invalidated}.
+ */
+class LocalRepositoryIndex {
+
+    private static final class Entry {
+        private final long length;
+        private final long lastModified;
+
+        Entry(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final Map<File, Map<String, Entry>> folders = new ConcurrentHashMap<>();
+    private final LongAdder scans = new LongAdder();
+
+    /**
+     * Returns the length of the given file.
+     *
+     * @param file
+     *            the file
+     * @return the length in bytes, 0 if the file does not exist as
+     *         {@link File#length()}
+     */
+    public long length(File file) {
+        Entry entry = entry(file);
+        return entry != null ? entry.length : 0L;
+    }
+
+    /**
+     * Returns the last modified time of the given file.
+     *
+     * @param file
+     *            the file
+     * @return the last modified time in milliseconds, 0 if the file does not
+     *         exist as {@link File#lastModified()}
+     */
+    public long lastModified(File file) {
+        Entry entry = entry(file);
+        return entry != null ? entry.lastModified : 0L;
+    }
+
+    /**
+     * Returns if the given file exists.
+     *
+     * @param file
+     *            the file
+     * @return {@code true} if the file exists
+     */
+    public boolean exists(File file) {
+        return entry(file) != null;
+    }
+
+    /**
+     * Discards the content of the folder of the given file, it will be listed
+     * again at next request.
+     *
+     * @param file
+     *            a file that has been created, changed or deleted
+     */
+    public void invalidate(File file) {
+        File folder = file.getAbsoluteFile().getParentFile();
+        if (folder != null) {
+            folders.remove(folder);
+        }
+    }
+
+    /**
+     * Returns how many folders have been listed.
+     *
+     * @return the number of folder scans
+     */
+    public long getScans() {
+        return scans.sum();
+    }
+
+    private Entry entry(File file) {
+        File absoluteFile = file.getAbsoluteFile();
+        File folder = absoluteFile.getParentFile();
+        if (folder == null) {
+            return null;
+        }
+        return folders.computeIfAbsent(folder, this::scan).get(absoluteFile.getName());
+    }
+
+    private Map<String, Entry> scan(File folder) {
+        scans.increment();
+        Map<String, Entry> entries = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder.toPath())) {
+            for (Path file : stream) {
+                try {
+                    // follow links as File#length() does
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    entries.put(file.getFileName().toString(), new Entry(attrs.size(), attrs.lastModifiedTime().toMillis()));
+                } catch (IOException e) {
+                    // an unreadable entry is as not existing
+                }
+            }
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            // nothing in a missing folder
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An on-disk index of the artifact files already validated. A file is
+ * validated again when its size, last modified time or expected checksum
+ * changes.
+ * <p>
+ * When the index is full the least recently used entries are evicted. The
+ * last access of an entry is updated at most once every hour, so builds that
+ * only hit the cache do not rewrite the index.
+ * <p>
+ * The index is shared between concurrent Maven processes, updates are merged
+ * under an exclusive file lock and replace the index with an atomic rename so
+ * that readers never see a partial file.
+ */
+class ValidationCache {
+
+    private static final String HEADER = "# maven-commons validation cache v1";
+    // file locks are held by the whole JVM, threads must be serialised apart
+    private static final Object JVM_LOCK = new Object();
+    private static final long ACCESS_RESOLUTION = TimeUnit.HOURS.toMillis(1);
+
+    private static class Entry {
+        private final long length;
+        private final long lastModified;
+        private final long lastAccess;
+        private final String digest;
+
+        Entry(long length, long lastModified, long lastAccess, String digest) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.lastAccess = lastAccess;
+            this.digest = digest;
+        }
+    }
+
+    private final File indexFile;
+    private final int maxEntries;
+    private final long accessResolution;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Entry> updates = new ConcurrentHashMap<>();
+    private volatile LocalRepositoryIndex localRepositoryIndex;
+
+    /**
+     * Default constructor.
+     *
+     * @param indexFile
+     *            the file where the index is stored
+     * @param maxEntries
+     *            the maximum number of entries kept in the index, the least
+     *            recently used are evicted first
+     */
+    ValidationCache(File indexFile, int maxEntries) {
+        this(indexFile, maxEntries, ACCESS_RESOLUTION);
+    }
+
+    /**
+     * Constructs a cache that updates the last access of entries with the
+     * given resolution.
+     *
+     * @param indexFile
+     *            the file where the index is stored
+     * @param maxEntries
+     *            the maximum number of entries kept in the index
+     * @param accessResolution
+     *            the milliseconds after which a hit updates the last access
+     *            of an entry
+     */
+    ValidationCache(File indexFile, int maxEntries, long accessResolution) {
+        this.indexFile = indexFile;
+        this.maxEntries = maxEntries;
+        this.accessResolution = accessResolution;
+    }
+
+    /**
+     * Loads the index from disk.
+     *
+     * @throws IOException
+     *             in case of failure reading the index
+     */
+    public void load() throws IOException {
+        entries.clear();
+        entries.putAll(read());
+    }
+
+    /**
+     * Returns if the given file has been already validated against the given
+     * digest and has not changed since.
+     *
+     * @param file
+     *            to check
+     * @param digest
+     *            the expected digest of the file
+     * @return {@code true} if the file is still valid
+     */
+    public boolean isValidated(File file, String digest) {
+        String path = file.getAbsolutePath();
+        Entry entry = updates.get(path);
+        if (entry == null) {
+            entry = entries.get(path);
+        }
+        if (entry == null || entry.length != length(file) || entry.lastModified != lastModified(file) || !entry.digest.equalsIgnoreCase(digest)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now - entry.lastAccess >= accessResolution) {
+            updates.put(path, new Entry(entry.length, entry.lastModified, now, entry.digest));
+        }
+        return true;
+    }
+
+    /**
+     * Records the given file as validated.
+     *
+     * @param file
+     *            validated
+     * @param digest
+     *            the digest the file has been validated against
+     */
+    public void validated(File file, String digest) {
+        updates.put(file.getAbsolutePath(), new Entry(length(file), lastModified(file), System.currentTimeMillis(), digest));
+    }
+
+    /**
+     * Set the index used to read length and last modified time of files.
+     *
+     * @param localRepositoryIndex
+     *            the index, {@code null} to read them from each file
+     */
+    void setLocalRepositoryIndex(LocalRepositoryIndex localRepositoryIndex) {
+        this.localRepositoryIndex = localRepositoryIndex;
+    }
+
+    private long length(File file) {
+        LocalRepositoryIndex index = localRepositoryIndex;
+        return index != null ? index.length(file) : file.length();
+    }
+
+    private long lastModified(File file) {
+        LocalRepositoryIndex index = localRepositoryIndex;
+        return index != null ? index.lastModified(file) : file.lastModified();
+    }
+
+    /**
+     * Merges the recorded files into the index on disk.
+     *
+     * @throws IOException
+     *             in case of failure writing the index
+     */
+    public void save() throws IOException {
+        if (updates.isEmpty()) {
+            return;
+        }
+        File folder = indexFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(folder.toPath());
+
+        synchronized (JVM_LOCK) {
+            File lockFile = new File(folder, indexFile.getName() + ".lock");
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE); //
+                    FileLock lock = channel.lock()) {
+                // another process could have updated the index meanwhile
+                Map<String, Entry> merged = read();
+                merged.putAll(updates);
+                if (merged.size() > maxEntries) {
+                    List<Map.Entry<String, Entry>> sorted = new ArrayList<>(merged.entrySet());
+                    sorted.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+                    for (Map.Entry<String, Entry> evicted : sorted.subList(0, merged.size() - maxEntries)) {
+                        merged.remove(evicted.getKey());
+                    }
+                }
+                write(merged, folder);
+                entries.clear();
+                entries.putAll(merged);
+                updates.clear();
+            }
+        }
+    }
+
+    private Map<String, Entry> read() throws IOException {
+        Map<String, Entry> result = new HashMap<>();
+        if (!indexFile.isFile()) {
+            return result;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] tokens = line.split("\t", 5);
+                if (line.startsWith("#") || tokens.length != 5) {
+                    continue;
+                }
+                try {
+                    result.put(tokens[4], new Entry(Long.parseLong(tokens[0]), Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), tokens[3]));
+                } catch (NumberFormatException e) {
+                    // skip corrupted entry
+                }
+            }
+        }
+        return result;
+    }
+
+    private void write(Map<String, Entry> index, File folder) throws IOException {
+        File tmpFile = File.createTempFile(indexFile.getName(), ".tmp", folder);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmpFile.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, Entry> e : index.entrySet()) {
+                    Entry entry = e.getValue();
+                    writer.write(entry.length + "\t" + entry.lastModified + "\t" + entry.lastAccess + "\t" + entry.digest + "\t" + e.getKey());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+}
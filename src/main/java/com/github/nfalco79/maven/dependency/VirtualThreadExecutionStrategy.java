@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs each task in a new virtual thread, the number of tasks running at the
+ * same time is still bounded by the parallelism. Blocking downloads do not
+ * hold a platform thread, so hundreds of artifacts could be resolved at the
+ * same time.
+ * <p>
+ * Virtual threads require Java 21. This class is replaced by its Java 21
+ * version in the multi-release jar, on older JVMs {@link #isSupported()}
+ * returns {@code false} and tasks run in a {@link ThreadPoolExecutionStrategy
+ * pool of platform threads}.
+ */
+public class VirtualThreadExecutionStrategy implements ExecutionStrategy {
+
+    private final ExecutionStrategy fallback = new ThreadPoolExecutionStrategy();
+
+    /**
+     * Returns if the running JVM supports virtual threads.
+     *
+     * @return {@code true} if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+
+    @Override
+    public ExecutorService newExecutor(int parallelism) {
+        return fallback.newExecutor(parallelism);
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+
+/**
+ * Index of the highest version artifact for each groupId:artifactId.
+ * <p>
+ * The same groupId:artifactId is merged many thousands of times in a raw
+ * dependency graph, so the index is an open addressing table that does not
+ * allocate any key for the lookup. A key is created only once for each
+ * distinct groupId:artifactId and versions are parsed once for each distinct
+ * value. The key is also the interned identity of a groupId:artifactId, see
+ * {@link #intern(String, String)}.
+ */
+class ArtifactIndex {
+
+    private static final class Entry {
+        private final int hash;
+        private final String groupId;
+        private final String artifactId;
+        private Artifact artifact;
+        private ArtifactVersion version;
+        private int occurrences;
+
+        Entry(int hash, String groupId, String artifactId) {
+            this.hash = hash;
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+        }
+
+        @Override
+        public String toString() {
+            return groupId + ':' + artifactId;
+        }
+    }
+
+    private Entry[] table;
+    private int size;
+    private final List<Entry> entries;
+    private final Map<String, ArtifactVersion> versions = new HashMap<>();
+
+    /**
+     * Default constructor.
+     *
+     * @param expectedSize
+     *            the expected number of distinct groupId:artifactId
+     */
+    ArtifactIndex(int expectedSize) {
+        table = new Entry[capacity(expectedSize)];
+        entries = new ArrayList<>(expectedSize);
+    }
+
+    private static int capacity(int expectedSize) {
+        return Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+    }
+
+    /**
+     * Grows the index to hold the given number of distinct
+     * groupId:artifactId without resize.
+     *
+     * @param expectedSize
+     *            the expected number of distinct groupId:artifactId
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = capacity(expectedSize);
+        if (capacity > table.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Returns the number of distinct groupId:artifactId in the index, stored,
+     * counted or interned.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the key of the given groupId:artifactId, the same instance for
+     * equal values. The key can be compared by identity instead of build a
+     * string of the coordinates.
+     *
+     * @param groupId
+     *            the group of the artifact
+     * @param artifactId
+     *            the id of the artifact
+     * @return the interned key
+     */
+    public Object intern(String groupId, String artifactId) {
+        return entry(groupId, artifactId, true);
+    }
+
+    /**
+     * Stores the given artifact if its groupId:artifactId is not indexed yet
+     * or if its version is higher than the indexed one. The first insertion
+     * order is preserved.
+     *
+     * @param artifact
+     *            to merge
+     */
+    public void merge(Artifact artifact) {
+        Entry entry = entry(artifact.getGroupId(), artifact.getArtifactId(), true);
+        if (entry.artifact == null) {
+            entry.artifact = artifact;
+            entries.add(entry);
+        } else {
+            replaceIfNewer(entry, artifact);
+        }
+    }
+
+    /**
+     * Counts an occurrence of the groupId:artifactId of the given artifact,
+     * without compare versions.
+     *
+     * @param artifact
+     *            to count
+     */
+    public void count(Artifact artifact) {
+        entry(artifact.getGroupId(), artifact.getArtifactId(), true).occurrences++;
+    }
+
+    /**
+     * Releases an occurrence of the groupId:artifactId of the given artifact
+     * previously counted.
+     *
+     * @param artifact
+     *            to release
+     * @return {@code true} if there are no more occurrences to release
+     */
+    public boolean release(Artifact artifact) {
+        Entry entry = entry(artifact.getGroupId(), artifact.getArtifactId(), false);
+        return entry != null && --entry.occurrences == 0;
+    }
+
+    /**
+     * Returns the indexed artifact with the same groupId:artifactId of the
+     * given artifact.
+     *
+     * @param artifact
+     *            to lookup
+     * @return the indexed artifact or {@code null} if not found
+     */
+    public Artifact get(Artifact artifact) {
+        Entry entry = entry(artifact.getGroupId(), artifact.getArtifactId(), false);
+        return entry == null ? null : entry.artifact;
+    }
+
+    private Entry entry(String groupId, String artifactId, boolean create) {
+        int hash = hash(groupId, artifactId);
+
+        int mask = table.length - 1;
+        int i = hash & mask;
+        Entry entry;
+        while ((entry = table[i]) != null) {
+            if (entry.hash == hash && Objects.equals(entry.artifactId, artifactId) && Objects.equals(entry.groupId, groupId)) {
+                return entry;
+            }
+            i = (i + 1) & mask;
+        }
+        if (!create) {
+            return null;
+        }
+
+        entry = new Entry(hash, groupId, artifactId);
+        table[i] = entry;
+        // keep load factor under 0.5 to have short probe sequences
+        if (++size * 2 > table.length) {
+            resize(table.length << 1);
+        }
+        return entry;
+    }
+
+    private void replaceIfNewer(Entry entry, Artifact artifact) {
+        Artifact stored = entry.artifact;
+        if (stored == artifact || Objects.equals(stored.getVersion(), artifact.getVersion())) {
+            return;
+        }
+        if (entry.version == null) {
+            entry.version = parseVersion(stored.getVersion());
+        }
+        ArtifactVersion version = parseVersion(artifact.getVersion());
+        if (entry.version.compareTo(version) < 0) {
+            entry.artifact = artifact;
+            entry.version = version;
+        }
+    }
+
+    private ArtifactVersion parseVersion(String version) {
+        // there are few distinct versions in a graph, parse each once
+        return versions.computeIfAbsent(version, DefaultArtifactVersion::new);
+    }
+
+    private void resize(int capacity) {
+        Entry[] newTable = new Entry[capacity];
+        int mask = newTable.length - 1;
+        for (Entry entry : table) {
+            if (entry == null) {
+                continue;
+            }
+            int i = entry.hash & mask;
+            while (newTable[i] != null) {
+                i = (i + 1) & mask;
+            }
+            newTable[i] = entry;
+        }
+        table = newTable;
+    }
+
+    private static int hash(String groupId, String artifactId) {
+        int h = Objects.hashCode(groupId) * 31 + Objects.hashCode(artifactId);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the indexed artifacts in order of first insertion.
+     *
+     * @return a live read only view of the indexed artifacts
+     */
+    public List<Artifact> values() {
+        return new AbstractList<Artifact>() {
+            @Override
+            public Artifact get(int index) {
+                return entries.get(index).artifact;
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+}
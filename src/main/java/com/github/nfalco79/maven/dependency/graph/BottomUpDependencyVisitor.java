@@ -15,17 +15,20 @@
  */
 package com.github.nfalco79.maven.dependency.graph;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.versioning.ArtifactVersion;
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyVisitor;
 
 /**
@@ -35,98 +38,238 @@ import org.eclipse.aether.graph.DependencyVisitor;
  */
 public class BottomUpDependencyVisitor implements DependencyNodeVisitor, DependencyVisitor {
 
-    private class ArtifactKey {
-        private String groupId;
-        private String artifactId;
+    /**
+     * Identifies a subtree of the graph. The dependency collector expands the
+     * same children for the same artifact in the same scope and with the same
+     * exclusions inherited from the path.
+     * <p>
+     * A key is created for each visited node, so it refers the interned
+     * groupId:artifactId and the other coordinates as they are instead of
+     * build the artifact id.
+     */
+    private static final class SubtreeKey {
+        private final Object artifact;
+        private final String version;
+        private final String type;
+        private final String classifier;
+        private final String scope;
+        private final Set<String> exclusions;
+        private final int hash;
 
-        public ArtifactKey(Artifact artifact) {
-            groupId = artifact.getGroupId();
-            artifactId = artifact.getArtifactId();
+        SubtreeKey(Object artifact, String version, String type, String classifier, String scope, Set<String> exclusions) {
+            this.artifact = artifact;
+            this.version = version;
+            this.type = type;
+            this.classifier = classifier;
+            this.scope = scope;
+            this.exclusions = exclusions;
+            int h = System.identityHashCode(artifact);
+            h = 31 * h + Objects.hashCode(version);
+            h = 31 * h + Objects.hashCode(type);
+            h = 31 * h + Objects.hashCode(classifier);
+            h = 31 * h + Objects.hashCode(scope);
+            this.hash = 31 * h + exclusions.hashCode();
         }
 
         @Override
         public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + ((artifactId == null) ? 0 : artifactId.hashCode());
-            result = prime * result + ((groupId == null) ? 0 : groupId.hashCode());
-            return result;
+            return hash;
         }
 
         @Override
-        public boolean equals(Object obj) { // NOSONAR generated
+        public boolean equals(Object obj) {
             if (this == obj) {
                 return true;
             }
-            if (obj == null) {
+            if (!(obj instanceof SubtreeKey)) {
                 return false;
             }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            ArtifactKey other = (ArtifactKey) obj;
-            if (artifactId == null) {
-                if (other.artifactId != null) {
-                    return false;
-                }
-            } else if (!artifactId.equals(other.artifactId)) {
-                return false;
-            }
-            if (groupId == null) {
-                if (other.groupId != null) {
-                    return false;
-                }
-            } else if (!groupId.equals(other.groupId)) {
-                return false;
-            }
-            return true;
+            SubtreeKey other = (SubtreeKey) obj;
+            return hash == other.hash && artifact == other.artifact && Objects.equals(version, other.version) && Objects.equals(type, other.type)
+                    && Objects.equals(classifier, other.classifier) && Objects.equals(scope, other.scope) && exclusions.equals(other.exclusions);
         }
+    }
 
-        @Override
-        public String toString() {
-            return groupId + ':' + artifactId;
-        }
+    private static final int DEFAULT_EXPECTED_ARTIFACTS = 256;
+
+    private final ArtifactIndex artifacts;
+    private boolean skipVisitedSubtrees;
+    private final Deque<SubtreeKey> path = new ArrayDeque<>();
+    private final Set<SubtreeKey> visitedSubtrees = new HashSet<>();
+
+    /**
+     * Default constructor.
+     */
+    public BottomUpDependencyVisitor() {
+        this(DEFAULT_EXPECTED_ARTIFACTS);
     }
 
-    private Map<ArtifactKey, Artifact> artifacts = new LinkedHashMap<>();
+    /**
+     * Constructs a visitor sized for the given graph.
+     *
+     * @param expectedArtifacts
+     *            the expected number of distinct groupId:artifactId in the
+     *            graph
+     */
+    public BottomUpDependencyVisitor(int expectedArtifacts) {
+        artifacts = new ArtifactIndex(expectedArtifacts);
+    }
 
     @Override
     public boolean visit(DependencyNode node) {
-        return true;
+        if (!skipVisitedSubtrees) {
+            return true;
+        }
+        Artifact artifact = node.getArtifact();
+        Set<String> exclusions = childExclusions(inheritedExclusions(), node);
+        return enter(new SubtreeKey(artifacts.intern(artifact.getGroupId(), artifact.getArtifactId()), artifact.getVersion(), artifact.getType(),
+                artifact.getClassifier(), artifact.getScope(), exclusions));
     }
 
     @Override
     public boolean endVisit(DependencyNode node) {
         store(node.getArtifact());
+        leave();
         return true;
     }
 
-    private void store(Artifact nodeArtifact) {
-        ArtifactKey key = new ArtifactKey(nodeArtifact);
-        if (!artifacts.containsKey(key)) {
-            artifacts.put(key, nodeArtifact);
-        } else {
-            ArtifactVersion nodeVersion = new DefaultArtifactVersion(nodeArtifact.getVersion());
-            ArtifactVersion storedVersion = new DefaultArtifactVersion(artifacts.get(key).getVersion());
-            if (storedVersion.compareTo(nodeVersion) < 0) {
-                artifacts.put(key, nodeArtifact);
-            }
+    private Set<String> inheritedExclusions() {
+        return path.isEmpty() ? Collections.<String> emptySet() : path.peek().exclusions;
+    }
+
+    private static <T> Set<String> inheritExclusions(Set<String> inheritedExclusions, Collection<T> nodeExclusions, Function<T, String> toString) {
+        if (nodeExclusions == null || nodeExclusions.isEmpty()) {
+            return inheritedExclusions;
+        }
+        Set<String> exclusions = new HashSet<>(inheritedExclusions);
+        for (T exclusion : nodeExclusions) {
+            exclusions.add(toString.apply(exclusion));
+        }
+        return exclusions;
+    }
+
+    private boolean enter(SubtreeKey key) {
+        path.push(key);
+        // children are skipped but the node itself is stored on leave
+        return !visitedSubtrees.contains(key);
+    }
+
+    private void leave() {
+        if (skipVisitedSubtrees) {
+            visitedSubtrees.add(path.pop());
         }
     }
 
+    void store(Artifact nodeArtifact) {
+        artifacts.merge(nodeArtifact);
+    }
+
+    /**
+     * Visits a subtree of a larger graph. The exclusions inherited from the
+     * ancestors of the subtree are part of the identity of the subtrees to
+     * skip.
+     *
+     * @param subtree
+     *            the root of the subtree
+     * @param inheritedExclusions
+     *            the exclusions inherited by the root of the subtree, see
+     *            {@link #childExclusions(Set, DependencyNode)}
+     */
+    void walk(DependencyNode subtree, Set<String> inheritedExclusions) {
+        if (!skipVisitedSubtrees) {
+            DependencyGraphWalker.walk(subtree, this);
+            return;
+        }
+        path.push(new SubtreeKey(null, null, null, null, null, inheritedExclusions));
+        try {
+            DependencyGraphWalker.walk(subtree, this);
+        } finally {
+            path.pop();
+        }
+    }
+
+    /**
+     * Returns the exclusions inherited by the children of a node.
+     *
+     * @param inheritedExclusions
+     *            the exclusions inherited by the node
+     * @param node
+     *            the parent node
+     * @return the exclusions of the node path
+     */
+    static Set<String> childExclusions(Set<String> inheritedExclusions, DependencyNode node) {
+        return inheritExclusions(inheritedExclusions, node.getExclusions(), e -> e.getGroupId() + ':' + e.getArtifactId());
+    }
+
+    /**
+     * Grows the index of stored artifacts to hold the given number of
+     * distinct groupId:artifactId.
+     *
+     * @param expectedArtifacts
+     *            the expected number of distinct groupId:artifactId
+     */
+    void ensureCapacity(int expectedArtifacts) {
+        artifacts.ensureCapacity(expectedArtifacts);
+    }
+
+    /**
+     * Returns the stored artifact with the same groupId:artifactId.
+     *
+     * @param artifact
+     *            to lookup
+     * @return the artifact with the highest version stored so far
+     */
+    Artifact getStored(Artifact artifact) {
+        return artifacts.get(artifact);
+    }
+
     public Collection<Artifact> getNodes() {
-        return Collections.unmodifiableCollection(artifacts.values());
+        return artifacts.values();
     }
 
     @Override
     public boolean visitEnter(org.eclipse.aether.graph.DependencyNode node) {
-        return true;
+        if (!skipVisitedSubtrees) {
+            return true;
+        }
+        Dependency dependency = node.getDependency();
+        org.eclipse.aether.artifact.Artifact artifact = node.getArtifact();
+        Set<String> exclusions = inheritExclusions(inheritedExclusions(), dependency == null ? null : dependency.getExclusions(),
+                e -> e.getGroupId() + ':' + e.getArtifactId());
+        return enter(new SubtreeKey(artifacts.intern(artifact.getGroupId(), artifact.getArtifactId()), artifact.getVersion(), artifact.getExtension(),
+                artifact.getClassifier(), dependency == null ? null : dependency.getScope(), exclusions));
     }
 
     @Override
     public boolean visitLeave(org.eclipse.aether.graph.DependencyNode node) {
         store(RepositoryUtils.toArtifact(node.getArtifact()));
+        leave();
         return true;
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns if the children of an already visited node are skipped.
+     *
+     * @return {@code true} if visited subtrees are skipped
+     */
+    public boolean isSkipVisitedSubtrees() {
+        return skipVisitedSubtrees;
+    }
+
+    /**
+     * Set if the children of a node are skipped when a node with the same
+     * artifact, scope and inherited exclusions has been already visited.
+     * <p>
+     * A raw dependency graph repeats the whole subtree of a common library
+     * for each path that reaches it. Since the dependency collector expands
+     * the same children in the same context, the skipped nodes are already
+     * stored and {@link #getNodes()} is the same of a full visit.
+     *
+     * @param skipVisitedSubtrees
+     *            {@code true} to skip visited subtrees
+     */
+    public void setSkipVisitedSubtrees(boolean skipVisitedSubtrees) {
+        this.skipVisitedSubtrees = skipVisitedSubtrees;
+    }
+
+}
@@ -15,19 +15,54 @@
  */
 package com.github.nfalco79.maven.dependency.graph;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.aether.AbstractForwardingRepositorySystemSession;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.collection.DependencyGraphTransformer;
+import org.eclipse.aether.util.graph.transformer.ChainedDependencyGraphTransformer;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.eclipse.aether.util.graph.transformer.JavaDependencyContextRefiner;
+import org.eclipse.aether.util.graph.transformer.JavaScopeDeriver;
+import org.eclipse.aether.util.graph.transformer.JavaScopeSelector;
+import org.eclipse.aether.util.graph.transformer.NearestVersionSelector;
+import org.eclipse.aether.util.graph.transformer.SimpleOptionalitySelector;
 
 /**
  * Special repository session that return no dependency graph transformer. This
  * allow to obtain a raw full detailed dependency graph.
+ * <p>
+ * The raw graph could be huge, since each dependency is expanded in every
+ * place it appears. The {@link Mode#CONFLICT_MARKED} mode keeps the nodes that
+ * lose a version conflict but does not expand them, and a maximum depth or
+ * number of nodes makes the graph build fail with a clear message instead of
+ * running out of memory.
  *
  * @author Nikolas Falco
  */
 public class DependencyGraphSession extends AbstractForwardingRepositorySystemSession {
 
+    /**
+     * The kind of dependency graph returned by the session.
+     */
+    public enum Mode {
+        /**
+         * Full detailed graph, no transformation at all.
+         */
+        RAW,
+        /**
+         * Graph with conflicts resolved where nodes that lose a conflict are
+         * kept without children.
+         */
+        CONFLICT_MARKED
+    }
+
     private RepositorySystemSession session;
+    private final Mode mode;
+    private final Map<String, Object> configProperties;
+    private int maxDepth;
+    private long maxNodes;
 
     /**
      * Default constructor to proxying a given session.
@@ -36,7 +71,28 @@ public class DependencyGraphSession extends AbstractForwardingRepositorySystemSe
      *            to proxying
      */
     public DependencyGraphSession(RepositorySystemSession session) {
+        this(session, Mode.RAW);
+    }
+
+    /**
+     * Constructor to proxying a given session returning the given kind of
+     * graph.
+     *
+     * @param session
+     *            to proxying
+     * @param mode
+     *            the kind of dependency graph
+     */
+    public DependencyGraphSession(RepositorySystemSession session, Mode mode) {
         this.session = session;
+        this.mode = mode;
+        if (mode == Mode.CONFLICT_MARKED) {
+            Map<String, Object> properties = new HashMap<>(session.getConfigProperties());
+            properties.put(ConflictResolver.CONFIG_PROP_VERBOSE, Boolean.TRUE);
+            this.configProperties = properties;
+        } else {
+            this.configProperties = null;
+        }
     }
 
     @Override
@@ -44,8 +100,81 @@ public class DependencyGraphSession extends AbstractForwardingRepositorySystemSe
         return this.session;
     }
 
+    @Override
+    public Map<String, Object> getConfigProperties() {
+        return configProperties != null ? configProperties : super.getConfigProperties();
+    }
+
     @Override
     public DependencyGraphTransformer getDependencyGraphTransformer() {
-        return null; // returns the untransformable dependency tree
+        DependencyGraphTransformer transformer = null; // returns the untransformable dependency tree
+        if (mode == Mode.CONFLICT_MARKED) {
+            transformer = session.getDependencyGraphTransformer();
+            if (transformer == null) {
+                transformer = new ChainedDependencyGraphTransformer(new ConflictResolver(new NearestVersionSelector(), new JavaScopeSelector(),
+                        new SimpleOptionalitySelector(), new JavaScopeDeriver()), new JavaDependencyContextRefiner());
+            }
+        }
+        if (maxDepth > 0 || maxNodes > 0) {
+            // limits apply to the graph as it will be returned
+            GraphLimitTransformer limit = new GraphLimitTransformer(maxDepth, maxNodes);
+            transformer = transformer == null ? limit : new ChainedDependencyGraphTransformer(transformer, limit);
+        }
+        return transformer;
+    }
+
+    /**
+     * Returns the kind of dependency graph returned by this session.
+     *
+     * @return the graph mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the maximum depth of the dependency graph.
+     *
+     * @return the maximum depth, 0 if unbounded
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Set the maximum depth of the dependency graph, the graph build fails if
+     * the graph is deeper.
+     *
+     * @param maxDepth
+     *            the maximum depth, 0 for unbounded
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns the maximum number of nodes of the dependency graph.
+     *
+     * @return the maximum number of nodes, 0 if unbounded
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Set the maximum number of nodes of the dependency graph, the graph
+     * build fails if the graph has more nodes.
+     *
+     * @param maxNodes
+     *            the maximum number of nodes, 0 for unbounded
+     */
+    public void setMaxNodes(long maxNodes) {
+        if (maxNodes < 0) {
+            throw new IllegalArgumentException("maxNodes must not be negative");
+        }
+        this.maxNodes = maxNodes;
     }
-}
+}
\ No newline at end of file
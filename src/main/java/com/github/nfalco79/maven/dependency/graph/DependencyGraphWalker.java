@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.eclipse.aether.graph.DependencyVisitor;
+
+/**
+ * Walks a dependency graph with an explicit stack instead of the recursive
+ * {@code accept} method of nodes, so that the depth of the graph is not
+ * limited by the thread stack size.
+ * <p>
+ * The visitor receives the same calls in the same order of
+ * {@link DependencyNode#accept(DependencyNodeVisitor)} and
+ * {@link org.eclipse.aether.graph.DependencyNode#accept(DependencyVisitor)}.
+ */
+public final class DependencyGraphWalker {
+
+    private static final class Frame<N> {
+        private final N node;
+        private Iterator<? extends N> children;
+
+        Frame(N node, Iterator<? extends N> children) {
+            this.node = node;
+            this.children = children;
+        }
+    }
+
+    private DependencyGraphWalker() {
+    }
+
+    /**
+     * Walks the graph starting from the given node.
+     *
+     * @param root
+     *            the node where start to walk
+     * @param visitor
+     *            the visitor of the nodes
+     * @return the result of {@link DependencyNodeVisitor#endVisit} for the
+     *         root node
+     */
+    public static boolean walk(DependencyNode root, DependencyNodeVisitor visitor) {
+        return walk(root, DependencyNode::getChildren, visitor::visit, visitor::endVisit);
+    }
+
+    /**
+     * Walks the graph starting from the given node.
+     *
+     * @param root
+     *            the node where start to walk
+     * @param visitor
+     *            the visitor of the nodes
+     * @return the result of {@link DependencyVisitor#visitLeave} for the root
+     *         node
+     */
+    public static boolean walk(org.eclipse.aether.graph.DependencyNode root, DependencyVisitor visitor) {
+        return walk(root, org.eclipse.aether.graph.DependencyNode::getChildren, visitor::visitEnter, visitor::visitLeave);
+    }
+
+    /**
+     * Counts the nodes of the graph starting from the given node. The walk
+     * stops to go deeper when the limit is reached, that bounds its cost on
+     * large graphs.
+     *
+     * @param root
+     *            the node where start to count
+     * @param limit
+     *            the count after that children are not visited anymore
+     * @return the number of nodes, at least the limit if the graph is larger
+     */
+    public static int count(DependencyNode root, int limit) {
+        int[] count = new int[1];
+        walk(root, DependencyNode::getChildren, node -> ++count[0] < limit, node -> true);
+        return count[0];
+    }
+
+    private static <N> boolean walk(N root, Function<N, List<? extends N>> children, Predicate<N> enter, Predicate<N> leave) {
+        Deque<Frame<N>> stack = new ArrayDeque<>();
+        stack.push(enter(root, children, enter));
+
+        boolean result = true;
+        while (!stack.isEmpty()) {
+            Frame<N> frame = stack.peek();
+            if (frame.children.hasNext()) {
+                stack.push(enter(frame.children.next(), children, enter));
+                continue;
+            }
+
+            stack.pop();
+            result = leave.test(frame.node);
+            if (!result && !stack.isEmpty()) {
+                // stop to visit the siblings as accept does
+                stack.peek().children = Collections.emptyIterator();
+            }
+        }
+        return result;
+    }
+
+    private static <N> Frame<N> enter(N node, Function<N, List<? extends N>> children, Predicate<N> enter) {
+        List<? extends N> nodeChildren = enter.test(node) ? children.apply(node) : null;
+        Iterator<? extends N> iterator = nodeChildren == null ? Collections.<N> emptyIterator() : nodeChildren.iterator();
+        return new Frame<>(node, iterator);
+    }
+
+}
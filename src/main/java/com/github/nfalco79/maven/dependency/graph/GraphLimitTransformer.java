@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.collection.DependencyGraphTransformationContext;
+import org.eclipse.aether.collection.DependencyGraphTransformer;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.DependencyVisitor;
+
+/**
+ * A transformer that fails when the dependency graph, once expanded to a tree,
+ * exceeds a maximum depth or number of nodes.
+ * <p>
+ * The collector returns a graph where equal subtrees are shared, the tree
+ * built from it repeats them for each parent. The tree size is computed on the
+ * shared graph, each node is visited once.
+ */
+class GraphLimitTransformer implements DependencyGraphTransformer {
+
+    private static final class Size {
+        private final long nodes;
+        private final int depth;
+
+        Size(long nodes, int depth) {
+            this.nodes = nodes;
+            this.depth = depth;
+        }
+    }
+
+    private static final Size EMPTY = new Size(0, 0);
+
+    private final int maxDepth;
+    private final long maxNodes;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxDepth
+     *            the maximum depth of the tree, 0 means unbounded
+     * @param maxNodes
+     *            the maximum number of nodes of the tree, 0 means unbounded
+     */
+    GraphLimitTransformer(int maxDepth, long maxNodes) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    @Override
+    public DependencyNode transformGraph(DependencyNode node, DependencyGraphTransformationContext context) throws RepositoryException {
+        Size size = size(node);
+        if (maxDepth > 0 && size.depth > maxDepth) {
+            throw new RepositoryException("The dependency graph of " + node + " is deeper than the maximum of " + maxDepth
+                    + ", use a conflict marked graph or increase the limit");
+        }
+        if (maxNodes > 0 && size.nodes > maxNodes) {
+            throw new RepositoryException("The dependency graph of " + node + " has more than " + maxNodes
+                    + " nodes, use a conflict marked graph or increase the limit");
+        }
+        return node;
+    }
+
+    private Size size(DependencyNode root) {
+        Map<DependencyNode, Size> sizes = new IdentityHashMap<>();
+        // false for nodes not expanded because already computed or part of a cycle
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        Size[] exceeded = new Size[1];
+        DependencyGraphWalker.walk(root, new DependencyVisitor() {
+            @Override
+            public boolean visitEnter(DependencyNode node) {
+                boolean expand = !sizes.containsKey(node);
+                if (expand) {
+                    sizes.put(node, null);
+                }
+                expanded.push(expand);
+                return expand;
+            }
+
+            @Override
+            public boolean visitLeave(DependencyNode node) {
+                if (!expanded.pop() || exceeded[0] != null) {
+                    return exceeded[0] == null;
+                }
+                long nodes = 1;
+                int depth = 0;
+                for (DependencyNode child : node.getChildren()) {
+                    Size size = sizes.get(child);
+                    if (size == null) {
+                        size = EMPTY; // cycle
+                    }
+                    // saturate, an unbounded tree could overflow
+                    nodes = nodes + size.nodes < 0 ? Long.MAX_VALUE : nodes + size.nodes;
+                    depth = Math.max(depth, size.depth);
+                }
+                Size size = new Size(nodes, depth + 1);
+                sizes.put(node, size);
+                if ((maxNodes > 0 && nodes > maxNodes) || (maxDepth > 0 && size.depth > maxDepth)) {
+                    // stop as soon as a limit is exceeded, the whole tree could be huge
+                    exceeded[0] = size;
+                    return false;
+                }
+                return true;
+            }
+        });
+        return exceeded[0] != null ? exceeded[0] : sizes.get(root);
+    }
+
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+
+/**
+ * Collects the artifacts of a dependency graph with the same result of
+ * {@link BottomUpDependencyVisitor}, splitting the traversal of large
+ * subtrees across a {@link ForkJoinPool}.
+ * <p>
+ * Each task returns the artifacts of its subtrees in bottom-up order, with
+ * the highest version for each groupId:artifactId. Results are merged in the
+ * order of the children, so the output does not depend on how tasks are
+ * scheduled. Graphs smaller than the threshold, or a pool without
+ * parallelism, are visited sequentially.
+ * <p>
+ * When visited subtrees are skipped, each task skips the subtrees already
+ * visited by itself. A task starts from the exclusions inherited by its
+ * subtrees, so it skips only subtrees that the sequential visitor would skip
+ * too.
+ */
+public class ParallelBottomUpCollector {
+
+    /**
+     * Default number of nodes under which a subtree is visited sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 10000;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private boolean skipVisitedSubtrees;
+
+    /**
+     * Default constructor, uses the common pool.
+     */
+    public ParallelBottomUpCollector() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a collector that runs on the given pool.
+     *
+     * @param pool
+     *            where tasks are executed
+     * @param threshold
+     *            the number of nodes under which a subtree is visited
+     *            sequentially
+     */
+    public ParallelBottomUpCollector(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be greater than 0");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Collects the artifacts of the given graph from leaf to root.
+     *
+     * @param root
+     *            the root of the graph
+     * @return the artifacts in the same order of
+     *         {@link BottomUpDependencyVisitor#getNodes()}
+     */
+    public Collection<Artifact> collect(DependencyNode root) {
+        if (pool.getParallelism() < 2) {
+            return visit(Collections.singletonList(root), Collections.<String> emptySet());
+        }
+        Set<DependencyNode> largeSubtrees = findLargeSubtrees(root);
+        if (!largeSubtrees.contains(root)) {
+            return visit(Collections.singletonList(root), Collections.<String> emptySet());
+        }
+        return pool.invoke(new SubtreeTask(root, Collections.<String> emptySet(), largeSubtrees));
+    }
+
+    private Set<DependencyNode> findLargeSubtrees(DependencyNode root) {
+        Set<DependencyNode> largeSubtrees = Collections.newSetFromMap(new IdentityHashMap<>());
+        DependencyGraphWalker.walk(root, new DependencyNodeVisitor() {
+            private final Deque<int[]> sizes = new ArrayDeque<>();
+
+            @Override
+            public boolean visit(DependencyNode node) {
+                sizes.push(new int[] { 1 });
+                return true;
+            }
+
+            @Override
+            public boolean endVisit(DependencyNode node) {
+                int size = sizes.pop()[0];
+                if (size >= threshold) {
+                    largeSubtrees.add(node);
+                }
+                if (!sizes.isEmpty()) {
+                    sizes.peek()[0] += size;
+                }
+                return true;
+            }
+        });
+        return largeSubtrees;
+    }
+
+    private BottomUpDependencyVisitor newVisitor() {
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
+        visitor.setSkipVisitedSubtrees(skipVisitedSubtrees);
+        return visitor;
+    }
+
+    private List<Artifact> visit(List<DependencyNode> subtrees, Set<String> inheritedExclusions) {
+        BottomUpDependencyVisitor visitor = newVisitor();
+        for (DependencyNode subtree : subtrees) {
+            visitor.walk(subtree, inheritedExclusions);
+        }
+        return new ArrayList<>(visitor.getNodes());
+    }
+
+    /**
+     * Returns if the children of an already visited node are skipped.
+     *
+     * @return {@code true} if visited subtrees are skipped
+     */
+    public boolean isSkipVisitedSubtrees() {
+        return skipVisitedSubtrees;
+    }
+
+    /**
+     * Set if the children of a node are skipped when a node with the same
+     * artifact, scope and inherited exclusions has been already visited, see
+     * {@link BottomUpDependencyVisitor#setSkipVisitedSubtrees(boolean)}.
+     *
+     * @param skipVisitedSubtrees
+     *            {@code true} to skip visited subtrees
+     */
+    public void setSkipVisitedSubtrees(boolean skipVisitedSubtrees) {
+        this.skipVisitedSubtrees = skipVisitedSubtrees;
+    }
+
+    /**
+     * Children of the same parent visited by the worker that merges them.
+     */
+    private static final class Siblings {
+        private final List<DependencyNode> nodes;
+        private final Set<String> inheritedExclusions;
+
+        Siblings(List<DependencyNode> nodes, Set<String> inheritedExclusions) {
+            this.nodes = nodes;
+            this.inheritedExclusions = inheritedExclusions;
+        }
+    }
+
+    private final class SequentialTask extends RecursiveTask<List<Artifact>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Siblings siblings;
+
+        SequentialTask(Siblings siblings) {
+            this.siblings = siblings;
+        }
+
+        @Override
+        protected List<Artifact> compute() {
+            return visit(siblings.nodes, siblings.inheritedExclusions);
+        }
+    }
+
+    private final class SubtreeTask extends RecursiveTask<List<Artifact>> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient DependencyNode root;
+        private final transient Set<String> inheritedExclusions;
+        private final transient Set<DependencyNode> largeSubtrees;
+
+        SubtreeTask(DependencyNode root, Set<String> inheritedExclusions, Set<DependencyNode> largeSubtrees) {
+            this.root = root;
+            this.inheritedExclusions = inheritedExclusions;
+            this.largeSubtrees = largeSubtrees;
+        }
+
+        @Override
+        protected List<Artifact> compute() {
+            // bottom-up order is: siblings before the large child top-down,
+            // the large child, then siblings after and the node bottom-up.
+            // Chains of single large children are walked in loop to not
+            // recurse for each level
+            List<Object> head = new ArrayList<>();
+            Deque<Object> tail = new ArrayDeque<>();
+            DependencyNode node = root;
+            Set<String> childExclusions = childExclusions(inheritedExclusions, node);
+            List<DependencyNode> children = getChildren(node);
+            int largeChild = singleLargeChild(children);
+            while (largeChild != -1) {
+                addSiblings(head, children.subList(0, largeChild), childExclusions);
+                tail.addFirst(node.getArtifact());
+                List<DependencyNode> after = children.subList(largeChild + 1, children.size());
+                if (!after.isEmpty()) {
+                    tail.addFirst(new Siblings(after, childExclusions));
+                }
+
+                node = children.get(largeChild);
+                childExclusions = childExclusions(childExclusions, node);
+                children = getChildren(node);
+                largeChild = singleLargeChild(children);
+            }
+
+            List<Object> pieces = new ArrayList<>(head);
+            if (children.stream().noneMatch(largeSubtrees::contains)) {
+                // a large subtree of small children, split them between workers
+                int chunkSize = Math.max(1, (children.size() + pool.getParallelism() - 1) / pool.getParallelism());
+                for (int i = 0; i < children.size(); i += chunkSize) {
+                    pieces.add(new SequentialTask(new Siblings(children.subList(i, Math.min(i + chunkSize, children.size())), childExclusions)).fork());
+                }
+            } else {
+                int start = 0;
+                for (int i = 0; i < children.size(); i++) {
+                    DependencyNode child = children.get(i);
+                    if (largeSubtrees.contains(child)) {
+                        addSiblings(pieces, children.subList(start, i), childExclusions);
+                        pieces.add(new SubtreeTask(child, childExclusions, largeSubtrees).fork());
+                        start = i + 1;
+                    }
+                }
+                addSiblings(pieces, children.subList(start, children.size()), childExclusions);
+            }
+            pieces.add(node.getArtifact());
+            pieces.addAll(tail);
+
+            return merge(pieces);
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<Artifact> merge(List<Object> pieces) {
+            BottomUpDependencyVisitor visitor = newVisitor();
+            for (Object piece : pieces) {
+                if (piece instanceof Artifact) {
+                    visitor.store((Artifact) piece);
+                } else if (piece instanceof ForkJoinTask) {
+                    for (Artifact artifact : ((ForkJoinTask<List<Artifact>>) piece).join()) {
+                        visitor.store(artifact);
+                    }
+                } else {
+                    // small subtrees are visited by this worker, forking
+                    // them costs more than visit
+                    Siblings siblings = (Siblings) piece;
+                    for (DependencyNode subtree : siblings.nodes) {
+                        visitor.walk(subtree, siblings.inheritedExclusions);
+                    }
+                }
+            }
+            return new ArrayList<>(visitor.getNodes());
+        }
+
+        private Set<String> childExclusions(Set<String> exclusions, DependencyNode node) {
+            // exclusions are relevant only to identify the subtrees to skip
+            return skipVisitedSubtrees ? BottomUpDependencyVisitor.childExclusions(exclusions, node) : exclusions;
+        }
+
+        private void addSiblings(List<Object> pieces, List<DependencyNode> siblings, Set<String> exclusions) {
+            if (!siblings.isEmpty()) {
+                pieces.add(new Siblings(siblings, exclusions));
+            }
+        }
+
+        private int singleLargeChild(List<DependencyNode> children) {
+            int largeChild = -1;
+            for (int i = 0; i < children.size(); i++) {
+                if (largeSubtrees.contains(children.get(i))) {
+                    if (largeChild != -1) {
+                        return -1;
+                    }
+                    largeChild = i;
+                }
+            }
+            return largeChild;
+        }
+
+        private List<DependencyNode> getChildren(DependencyNode node) {
+            List<DependencyNode> children = node.getChildren();
+            return children == null ? Collections.<DependencyNode> emptyList() : children;
+        }
+    }
+
+}
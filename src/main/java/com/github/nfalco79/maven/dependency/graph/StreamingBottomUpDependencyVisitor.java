@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+
+/**
+ * Collects the artifacts of a dependency graph like a
+ * {@link BottomUpDependencyVisitor} and pushes each artifact to a consumer as
+ * soon as its version can not change anymore, so that the consumer can
+ * start to work on it while the graph is still visited.
+ * <p>
+ * The version of a groupId:artifactId is final when its last occurrence in
+ * the graph has been visited. Occurrences are counted by a first light walk
+ * of the graph that does not compare versions. Artifacts are pushed in
+ * the order their last occurrence is visited, {@link #getNodes()} keeps the
+ * usual bottom-up order.
+ * <p>
+ * The graph is walked twice, so this visitor costs about twice a
+ * {@link BottomUpDependencyVisitor} when nothing is done with the pushed
+ * artifacts. It pays off only when the consumer starts slow work, like
+ * downloads, that overlaps the second walk.
+ */
+public class StreamingBottomUpDependencyVisitor {
+
+    private static final int DEFAULT_EXPECTED_ARTIFACTS = 256;
+
+    private final Consumer<Artifact> consumer;
+    private final ArtifactIndex occurrences;
+    private final BottomUpDependencyVisitor visitor;
+
+    /**
+     * Default constructor.
+     *
+     * @param consumer
+     *            receives each artifact when its version is final
+     */
+    public StreamingBottomUpDependencyVisitor(Consumer<Artifact> consumer) {
+        this(consumer, DEFAULT_EXPECTED_ARTIFACTS);
+    }
+
+    /**
+     * Constructs a visitor sized for the given graph. The artifacts index is
+     * anyway sized from the counting walk.
+     *
+     * @param consumer
+     *            receives each artifact when its version is final
+     * @param expectedArtifacts
+     *            the expected number of distinct groupId:artifactId in the
+     *            graph
+     */
+    public StreamingBottomUpDependencyVisitor(Consumer<Artifact> consumer, int expectedArtifacts) {
+        this.consumer = consumer;
+        this.occurrences = new ArtifactIndex(expectedArtifacts);
+        this.visitor = new BottomUpDependencyVisitor(expectedArtifacts) {
+            @Override
+            void store(Artifact nodeArtifact) {
+                super.store(nodeArtifact);
+                if (occurrences.release(nodeArtifact)) {
+                    consumer.accept(getStored(nodeArtifact));
+                }
+            }
+        };
+    }
+
+    /**
+     * Visits the graph starting from the given node. A first walk counts the
+     * occurrences of each groupId:artifactId, a second walk stores them and
+     * pushes each artifact to the consumer.
+     *
+     * @param root
+     *            the root of the graph
+     */
+    public void walk(DependencyNode root) {
+        BottomUpDependencyVisitor counter = new BottomUpDependencyVisitor() {
+            @Override
+            void store(Artifact nodeArtifact) {
+                occurrences.count(nodeArtifact);
+            }
+        };
+        // the same subtrees must be skipped to count the same occurrences
+        counter.setSkipVisitedSubtrees(visitor.isSkipVisitedSubtrees());
+        DependencyGraphWalker.walk(root, counter);
+
+        visitor.ensureCapacity(occurrences.size());
+        DependencyGraphWalker.walk(root, visitor);
+    }
+
+    /**
+     * Returns the visited artifacts from leaf to root, see
+     * {@link BottomUpDependencyVisitor#getNodes()}.
+     *
+     * @return the collected artifacts
+     */
+    public Collection<Artifact> getNodes() {
+        return visitor.getNodes();
+    }
+
+    /**
+     * Returns if the children of an already visited node are skipped.
+     *
+     * @return {@code true} if visited subtrees are skipped
+     */
+    public boolean isSkipVisitedSubtrees() {
+        return visitor.isSkipVisitedSubtrees();
+    }
+
+    /**
+     * Set if the children of a node are skipped when a node with the same
+     * artifact, scope and inherited exclusions has been already visited, see
+     * {@link BottomUpDependencyVisitor#setSkipVisitedSubtrees(boolean)}.
+     *
+     * @param skipVisitedSubtrees
+     *            {@code true} to skip visited subtrees
+     */
+    public void setSkipVisitedSubtrees(boolean skipVisitedSubtrees) {
+        visitor.setSkipVisitedSubtrees(skipVisitedSubtrees);
+    }
+
+}
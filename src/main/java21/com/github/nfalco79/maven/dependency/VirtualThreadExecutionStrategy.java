@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each task in a new virtual thread, the number of tasks running at the
+ * same time is still bounded by the parallelism. Blocking downloads do not
+ * hold a platform thread, so hundreds of artifacts could be resolved at the
+ * same time.
+ * <p>
+ * Virtual threads require Java 21. This class is replaced by its Java 21
+ * version in the multi-release jar, on older JVMs {@link #isSupported()}
+ * returns {@code false} and tasks run in a {@link ThreadPoolExecutionStrategy
+ * pool of platform threads}.
+ */
+public class VirtualThreadExecutionStrategy implements ExecutionStrategy {
+
+    /**
+     * Bounds the tasks running at the same time, waiting tasks park their
+     * virtual thread on a semaphore.
+     */
+    private static class BoundedExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private volatile boolean stopped;
+
+        BoundedExecutorService(ExecutorService delegate, int parallelism) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(parallelism);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    // executor has been shut down, the task will never run
+                    cancel(command);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (stopped) {
+                    // the permit released by an interrupted task is taken
+                    // before this thread has been interrupted
+                    permits.release();
+                    cancel(command);
+                    return;
+                }
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        private void cancel(Runnable command) {
+            if (command instanceof Future) {
+                ((Future<?>) command).cancel(false);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            stopped = true;
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * Returns if the running JVM supports virtual threads.
+     *
+     * @return {@code true} if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    @Override
+    public ExecutorService newExecutor(int parallelism) {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dependency-resolver-", 1).factory());
+        return new BoundedExecutorService(executor, parallelism);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.artifact.filter.PatternExcludesArtifactFilter;
+import org.apache.maven.shared.artifact.filter.PatternIncludesArtifactFilter;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ArtifactPatternMatcherTest {
+
+    private static final String[] PATTERNS = { "org.acme", "org.acme:*", "org.acme:core", "org.acme:core:*", "org.acme.*", "org.*:core", "org.ac?e",
+            "*:core", "*:*", "*:*:*", "*", "", "org.acme:*:*", "*:core:*", "*:*:jar", "org.acme:core:jar", "org.acme:core:jar:1.0",
+            "org.acme:core:jar:tests:1.0", "org.acme:core:jar:[1.0,2.0)", "org.acme:co*", "*acme*", "com.acme.tools", "com.acme.*:util", "!org.acme:core",
+            "!org.acme.*", "!*:util", "!!com.acme", "org.acme.internal*" };
+
+    @Test
+    public void same_semantic_of_pattern_filters() throws Exception {
+        List<Artifact> artifacts = new ArrayList<>();
+        for (String groupId : new String[] { "org.acme", "org.acme.internal", "org.acmf", "com.acme", "com.acme.tools", "org" }) {
+            for (String artifactId : new String[] { "core", "util", "acme-api" }) {
+                for (String classifier : new String[] { null, "tests" }) {
+                    artifacts.add(new DefaultArtifact(groupId, artifactId, "1.0", "compile", "jar", classifier, new DefaultArtifactHandler("jar")));
+                    artifacts.add(new DefaultArtifact(groupId, artifactId, "2.1", "test", "war", classifier, new DefaultArtifactHandler("war")));
+                }
+            }
+        }
+        Set<Artifact> artifactSet = new HashSet<>(artifacts);
+
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            List<String> patterns = new ArrayList<>();
+            for (int j = random.nextInt(6); j >= 0; j--) {
+                patterns.add(PATTERNS[random.nextInt(PATTERNS.length)]);
+            }
+
+            ArtifactPatternMatcher matcher = new ArtifactPatternMatcher(patterns);
+            PatternIncludesArtifactFilter includes = new PatternIncludesArtifactFilter(patterns);
+            for (Artifact artifact : artifacts) {
+                Assertions.assertThat(matcher.matches(artifact)).as("%s on %s", patterns, artifact).isEqualTo(includes.include(artifact));
+            }
+
+            PatternExcludesArtifactFilter excludes = new PatternExcludesArtifactFilter(patterns);
+            Assertions.assertThat(new IncludesArtifactFilter(patterns).filter(artifactSet)).containsExactlyInAnyOrderElementsOf(artifacts.stream() //
+                    .filter(includes::include)::iterator);
+            Assertions.assertThat(new ExcludeArtifactFilter(patterns).filter(artifactSet)).containsExactlyInAnyOrderElementsOf(artifacts.stream() //
+                    .filter(excludes::include)::iterator);
+        }
+    }
+
+    @Test
+    public void invalid_pattern_fails_at_construction() {
+        Assertions.assertThatThrownBy(() -> new ArtifactPatternMatcher(Arrays.asList("a:b:c:d:e:f"))) //
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.artifact.filter.collection.ScopeFilter;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class FilteredArtifactSetTest {
+
+    @Test
+    public void view_is_live() throws Exception {
+        Set<Artifact> artifacts = new HashSet<>();
+        artifacts.add(buildArtifact("org.acme", "a1", false));
+        artifacts.add(buildArtifact("org.acme", "a2", true));
+        artifacts.add(buildArtifact("com.acme", "a3", false));
+
+        FilteredArtifactSet view = new OptionalFilter(false).view(new IncludesArtifactFilter(Arrays.asList("org.acme")).view(artifacts));
+        Assertions.assertThat(view).extracting(Artifact::getArtifactId).containsExactly("a1");
+
+        Set<Artifact> snapshot = view.materialize();
+        artifacts.add(buildArtifact("org.acme", "a4", false));
+        Assertions.assertThat(view).hasSize(2);
+        Assertions.assertThat(snapshot).hasSize(1);
+        Assertions.assertThatThrownBy(() -> view.add(buildArtifact("org.acme", "a5", false))).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void fused_view_has_same_artifacts_of_filter() throws Exception {
+        Set<Artifact> artifacts = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            DefaultArtifact artifact = buildArtifact(i % 2 == 0 ? "org.acme" : "com.acme", "a" + i, i % 3 == 0);
+            artifact.setScope(i % 4 == 0 ? "test" : "compile");
+            artifacts.add(artifact);
+        }
+
+        FusedArtifactsFilter filter = new FusedArtifactsFilter(Arrays.asList(new IncludesArtifactFilter(Arrays.asList("org.*")), new OptionalFilter(false),
+                new ScopeFilter("compile", null), new ExcludeArtifactFilter(Arrays.asList("*:a2"))));
+        Assertions.assertThat(filter.view(artifacts)).isNotEmpty().containsExactlyInAnyOrderElementsOf(filter.filter(artifacts));
+    }
+
+    private DefaultArtifact buildArtifact(String groupId, String artifactId, boolean optional) {
+        DefaultArtifact artifact = new DefaultArtifact(groupId, artifactId, "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar"));
+        artifact.setOptional(optional);
+        return artifact;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.filter.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.shared.artifact.filter.collection.FilterArtifacts;
+import org.apache.maven.shared.artifact.filter.collection.ScopeFilter;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class FusedArtifactsFilterTest {
+
+    private static class CountingFilter extends AbstractArtifactPredicateFilter {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final String artifactId;
+
+        CountingFilter(String artifactId) {
+            this.artifactId = artifactId;
+        }
+
+        @Override
+        public boolean include(Artifact artifact) {
+            calls.incrementAndGet();
+            return artifact.getArtifactId().equals(artifactId);
+        }
+    }
+
+    @Test
+    public void same_result_of_filter_chain() throws Exception {
+        Set<Artifact> artifacts = buildArtifacts();
+
+        FilterArtifacts expected = new FilterArtifacts();
+        expected.addFilter(new IncludesArtifactFilter(Arrays.asList("org.acme*")));
+        expected.addFilter(new ScopeFilter("compile", null));
+        expected.addFilter(new ExcludeArtifactFilter(Arrays.asList("*:a1", "org.acme.tools:*")));
+        expected.addFilter(new OptionalFilter(false));
+        expected.addFilter(new OptionalFilter(true));
+
+        Set<Artifact> expectedArtifacts = expected.filter(artifacts);
+
+        FilterArtifacts fused = new FilterArtifacts();
+        fused.setFilters(new ArrayList<>(expected.getFilters()));
+        fused = FusedArtifactsFilter.fuse(fused);
+        Assertions.assertThat(fused.getFilters()).hasSize(1);
+
+        Assertions.assertThat(fused.filter(artifacts)).isNotEmpty().containsExactlyInAnyOrderElementsOf(expectedArtifacts);
+        Assertions.assertThat(fused.filter(artifacts)).containsExactlyInAnyOrderElementsOf(expectedArtifacts);
+    }
+
+    @Test
+    public void selective_filter_runs_first() throws Exception {
+        Set<Artifact> artifacts = buildArtifacts();
+        CountingFilter includeAll = new CountingFilter(null) {
+            @Override
+            public boolean include(Artifact artifact) {
+                super.include(artifact);
+                return true;
+            }
+        };
+        CountingFilter selective = new CountingFilter("a2");
+        FusedArtifactsFilter filter = new FusedArtifactsFilter(Arrays.asList(includeAll, selective));
+
+        filter.filter(artifacts);
+        includeAll.calls.set(0);
+        selective.calls.set(0);
+
+        Set<Artifact> result = filter.filter(artifacts);
+        Assertions.assertThat(result).allMatch(a -> a.getArtifactId().equals("a2"));
+        Assertions.assertThat(selective.calls).hasValue(artifacts.size());
+        Assertions.assertThat(includeAll.calls).hasValue(result.size());
+    }
+
+    private Set<Artifact> buildArtifacts() {
+        Set<Artifact> artifacts = new HashSet<>();
+        for (String groupId : new String[] { "org.acme", "org.acme.tools", "com.acme" }) {
+            for (int i = 0; i < 10; i++) {
+                for (String scope : new String[] { "compile", "test" }) {
+                    DefaultArtifact artifact = new DefaultArtifact(groupId, "a" + i, "1.0", scope, "jar", null, new DefaultArtifactHandler("jar"));
+                    artifact.setOptional(i % 3 == 0);
+                    artifacts.add(artifact);
+                }
+            }
+        }
+        return artifacts;
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.resolver.filter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.nfalco79.maven.artifact.filter.collection.ExcludeArtifactFilter;
+import com.github.nfalco79.maven.artifact.filter.collection.MemoizingArtifactsFilter;
+
+public class ArtifactFilterCacheTest {
+
+    @Test
+    public void equal_filters_share_decisions() {
+        ArtifactFilterCache cache = new ArtifactFilterCache(100);
+        AtomicInteger calls = new AtomicInteger();
+        TypeFiler jarFilter = new TypeFiler("jar") {
+            @Override
+            public boolean include(Artifact artifact) {
+                calls.incrementAndGet();
+                return super.include(artifact);
+            }
+        };
+
+        Artifact jar = buildArtifact("a", "jar", false);
+        Artifact war = buildArtifact("b", "war", false);
+        for (int module = 0; module < 5; module++) {
+            MemoizingArtifactFilter filter = new MemoizingArtifactFilter(jarFilter, cache);
+            Assertions.assertThat(filter.include(jar)).isTrue();
+            Assertions.assertThat(filter.include(buildArtifact("a", "jar", false))).isTrue();
+            Assertions.assertThat(filter.include(war)).isFalse();
+        }
+        Assertions.assertThat(calls).hasValue(2);
+        Assertions.assertThat(cache.getHitRate()).isEqualTo(13d / 15);
+
+        // optional flag is part of the key
+        Assertions.assertThat(new MemoizingArtifactFilter(new OptionalFilter(false), cache).include(buildArtifact("a", "jar", true))).isFalse();
+        Assertions.assertThat(new MemoizingArtifactFilter(new OptionalFilter(false), cache).include(jar)).isTrue();
+    }
+
+    @Test
+    public void collection_filter_and_eviction() throws Exception {
+        ArtifactFilterCache cache = new ArtifactFilterCache(8);
+        Set<Artifact> artifacts = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            artifacts.add(buildArtifact("a" + i, "jar", false));
+        }
+
+        ExcludeArtifactFilter exclude = new ExcludeArtifactFilter(Arrays.asList("*:a1*"));
+        Set<Artifact> expected = exclude.filter(artifacts);
+        Assertions.assertThat(new MemoizingArtifactsFilter(exclude, cache).filter(artifacts)).containsExactlyInAnyOrderElementsOf(expected);
+        Assertions.assertThat(new MemoizingArtifactsFilter(new ExcludeArtifactFilter(Arrays.asList("*:a1*")), cache).filter(artifacts))
+                .containsExactlyInAnyOrderElementsOf(expected);
+        Assertions.assertThat(cache.size()).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    public void cheap_filters_are_not_cached() throws Exception {
+        ArtifactFilterCache cache = new ArtifactFilterCache(8);
+        Set<Artifact> artifacts = new HashSet<>(Arrays.asList(buildArtifact("a", "jar", false), buildArtifact("b", "jar", true)));
+
+        MemoizingArtifactsFilter filter = new MemoizingArtifactsFilter(new com.github.nfalco79.maven.artifact.filter.collection.OptionalFilter(false), cache);
+        Assertions.assertThat(filter.filter(artifacts)).extracting(Artifact::getArtifactId).containsExactly("a");
+        Assertions.assertThat(cache.size()).isZero();
+        Assertions.assertThat(cache.getMisses()).isZero();
+    }
+
+    @Test
+    public void memoizing_filters_are_equal_to_filters_of_equal_delegate() {
+        ArtifactFilterCache cache = new ArtifactFilterCache(8);
+        MemoizingArtifactsFilter filter = new MemoizingArtifactsFilter(new ExcludeArtifactFilter(Arrays.asList("*:a1*")), cache);
+        MemoizingArtifactsFilter sameFilter = new MemoizingArtifactsFilter(new ExcludeArtifactFilter(Arrays.asList("*:a1*")), new ArtifactFilterCache(8));
+
+        Assertions.assertThat(filter).isEqualTo(sameFilter).hasSameHashCodeAs(sameFilter);
+        // equal filters of the same cache share the instance used as key
+        Assertions.assertThat(new MemoizingArtifactsFilter(new ExcludeArtifactFilter(Arrays.asList("*:a1*")), cache).getFilter()).isSameAs(filter.getFilter());
+        Assertions.assertThat(filter).isNotEqualTo(new MemoizingArtifactsFilter(new ExcludeArtifactFilter(Arrays.asList("*:a2*")), cache));
+        // a memoizing filter can be cached by an outer filter
+        Assertions.assertThat(new MemoizingArtifactFilter(filter, cache)).isEqualTo(new MemoizingArtifactFilter(sameFilter, cache));
+    }
+
+    private Artifact buildArtifact(String artifactId, String type, boolean optional) {
+        DefaultArtifact artifact = new DefaultArtifact("org.acme", artifactId, "1.0", "compile", type, null, new DefaultArtifactHandler(type));
+        artifact.setOptional(optional);
+        return artifact;
+    }
+
+}
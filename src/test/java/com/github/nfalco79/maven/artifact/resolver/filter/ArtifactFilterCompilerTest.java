@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.artifact.resolver.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.resolver.filter.AndArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.CumulativeScopeArtifactFilter;
+import org.apache.maven.artifact.resolver.filter.ScopeArtifactFilter;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ArtifactFilterCompilerTest {
+
+    private static final String[] TYPES = { "jar", "war", "pom", "test-jar", "zip" };
+    private static final String[] SCOPES = { "compile", "runtime", "test", "provided", "system", "import", null };
+
+    @Test
+    public void same_decisions_of_filter_tree() {
+        Random random = new Random(13);
+        List<Artifact> artifacts = new ArrayList<>();
+        for (String type : TYPES) {
+            for (String scope : SCOPES) {
+                for (boolean optional : new boolean[] { true, false }) {
+                    DefaultArtifact artifact = new DefaultArtifact("g", "a", "1.0", scope, type, null, new DefaultArtifactHandler(type));
+                    artifact.setOptional(optional);
+                    artifacts.add(artifact);
+                }
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            ArtifactFilter filter = randomFilter(random, 3);
+            ArtifactFilter compiled = ArtifactFilterCompiler.compile(filter);
+            for (Artifact artifact : artifacts) {
+                Assertions.assertThat(compiled.include(artifact)).as("%s on %s", filter, artifact).isEqualTo(filter.include(artifact));
+            }
+        }
+    }
+
+    @Test
+    public void unsupported_filter_is_kept() {
+        ArtifactFilter custom = a -> a.getArtifactId().startsWith("a");
+        Assertions.assertThat(ArtifactFilterCompiler.compile(custom)).isSameAs(custom);
+
+        ArtifactFilter compiled = ArtifactFilterCompiler.compile(new AndArtifactFilter(Arrays.asList(new TypeFiler("jar"), custom)));
+        Assertions.assertThat(compiled.include(new DefaultArtifact("g", "a1", "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar")))).isTrue();
+        Assertions.assertThat(compiled.include(new DefaultArtifact("g", "b1", "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar")))).isFalse();
+    }
+
+    private ArtifactFilter randomFilter(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 5 : 4)) {
+        case 0:
+            return new TypeFiler(TYPES[random.nextInt(TYPES.length - 1)]);
+        case 1:
+            return new OptionalFilter(random.nextBoolean());
+        case 2:
+            return new ScopeArtifactFilter(SCOPES[random.nextInt(5)]);
+        case 3:
+            return new CumulativeScopeArtifactFilter(Arrays.asList(SCOPES[random.nextInt(5)], SCOPES[random.nextInt(5)]));
+        default:
+            AndArtifactFilter and = new AndArtifactFilter();
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                and.add(randomFilter(random, depth - 1));
+            }
+            return and;
+        }
+    }
+
+}
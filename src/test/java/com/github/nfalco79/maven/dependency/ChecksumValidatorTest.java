@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.nfalco79.maven.dependency.ChecksumValidator.Algorithm;
+
+public class ChecksumValidatorTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void test_digest_larger_than_buffer() throws Exception {
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        File file = fileRule.newFile("a-1.0.jar");
+        FileUtils.writeByteArrayToFile(file, content);
+
+        StringBuilder expected = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-1").digest(content)) {
+            expected.append(String.format("%02x", b));
+        }
+        Assertions.assertThat(new ChecksumValidator().digest(file, Algorithm.SHA1)).isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void test_concurrent_digests_share_buffers() throws Exception {
+        byte[] content = new byte[2 * 1024 * 1024 + 5];
+        new Random(7).nextBytes(content);
+        File file = fileRule.newFile("a-1.0.jar");
+        FileUtils.writeByteArrayToFile(file, content);
+        String expected = new ChecksumValidator().digest(file, Algorithm.SHA256);
+
+        // more tasks than pooled buffers, the others read with a heap buffer
+        ChecksumValidator validator = new ChecksumValidator();
+        int tasks = Runtime.getRuntime().availableProcessors() * 4;
+        ExecutorService executor = Executors.newFixedThreadPool(tasks);
+        try {
+            List<Future<String>> digests = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                digests.add(executor.submit(() -> validator.digest(file, Algorithm.SHA256)));
+            }
+            for (Future<String> digest : digests) {
+                Assertions.assertThat(digest.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_checksum_file() throws Exception {
+        File file = fileRule.newFile("a-1.0.jar");
+        FileUtils.writeStringToFile(file, "content", StandardCharsets.UTF_8);
+
+        ChecksumValidator validator = new ChecksumValidator();
+        Assertions.assertThat(validator.isValid(file)).isTrue();
+
+        File sha1File = new File(file.getPath() + ".sha1");
+        FileUtils.writeStringToFile(sha1File, validator.digest(file, Algorithm.SHA1).toUpperCase() + "  a-1.0.jar", StandardCharsets.US_ASCII);
+        Assertions.assertThat(validator.isValid(file)).isTrue();
+
+        // the strongest checksum wins
+        File sha256File = new File(file.getPath() + ".sha256");
+        FileUtils.writeStringToFile(sha256File, validator.digest(new File(file.getPath() + ".sha1"), Algorithm.SHA256), StandardCharsets.US_ASCII);
+        Assertions.assertThat(validator.isValid(file)).isFalse();
+    }
+
+    @Test
+    public void test_cached_validation_of_replaced_checksum_file() throws Exception {
+        File file = fileRule.newFile("a-1.0.jar");
+        FileUtils.writeStringToFile(file, "content", StandardCharsets.UTF_8);
+        ChecksumValidator validator = new ChecksumValidator();
+        File sha1File = new File(file.getPath() + ".sha1");
+        FileUtils.writeStringToFile(sha1File, validator.digest(file, Algorithm.SHA1), StandardCharsets.US_ASCII);
+
+        ValidationCache cache = new ValidationCache(fileRule.newFile("validation.idx"), 10);
+        Assertions.assertThat(validator.isValid(file, cache)).isTrue();
+        Assertions.assertThat(validator.isValid(file, cache)).isTrue();
+
+        // the file is unchanged but does not match the new checksum
+        FileUtils.writeStringToFile(sha1File, validator.digest(sha1File, Algorithm.SHA1), StandardCharsets.US_ASCII);
+        Assertions.assertThat(validator.isValid(file, cache)).isFalse();
+    }
+
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.resolver.filter.ArtifactFilter;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.assertj.core.api.Assertions;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.nfalco79.maven.MavenUtils;
+import com.github.nfalco79.maven.artifact.resolver.filter.TypeFiler;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession.Mode;
+
+public class DependencyGraphSnapshotTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void test_save_and_load_graph() throws Exception {
+        Artifact shared = MavenUtils.buildArtifact("org.acme", "shared", "2.0");
+        shared.setFile(fileRule.newFile("shared-2.0.jar"));
+
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g", "a", "1"), null, null, null);
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("org.excluded");
+        exclusion.setArtifactId("*");
+        DefaultDependencyNode child = new DefaultDependencyNode(root, MavenUtils.buildArtifact("org.acme", "child", "1.0", "test"), "0.9", "compile", "1.0",
+                true, Arrays.asList(exclusion));
+        DefaultDependencyNode leaf1 = new DefaultDependencyNode(child, shared, null, null, null);
+        leaf1.setChildren(Collections.emptyList());
+        child.setChildren(Arrays.asList(leaf1));
+        DefaultDependencyNode leaf2 = new DefaultDependencyNode(root, shared, null, null, null);
+        leaf2.setChildren(Collections.emptyList());
+        root.setChildren(Arrays.asList(child, leaf2));
+
+        MavenProject project = buildMavenProject("1.0");
+        DependencyGraphSnapshot snapshot = new DependencyGraphSnapshot(fileRule.newFolder("snapshots"));
+        Assertions.assertThat(snapshot.save(project, new TypeFiler("jar"), null, root)).isTrue();
+
+        DependencyNode loaded = snapshot.load(project, new TypeFiler("jar"), null);
+        Assertions.assertThat(dump(loaded)).containsExactlyElementsOf(dump(root));
+        DependencyNode loadedChild = loaded.getChildren().get(0);
+        Assertions.assertThat(loadedChild.getParent()).isSameAs(loaded);
+        Assertions.assertThat(loadedChild.getExclusions()).extracting(Exclusion::getGroupId).containsExactly("org.excluded");
+        Assertions.assertThat(loadedChild.getChildren().get(0).getArtifact()).isSameAs(loaded.getChildren().get(1).getArtifact());
+        Assertions.assertThat(loaded.getChildren().get(1).getArtifact().getFile()).isEqualTo(shared.getFile());
+
+        // a changed dependency model has another snapshot
+        Assertions.assertThat(snapshot.load(buildMavenProject("2.0"), new TypeFiler("jar"), null)).isNull();
+        Assertions.assertThat(snapshot.load(project, new TypeFiler("war"), null)).isNull();
+
+        // a missing file invalidates the snapshot
+        Assertions.assertThat(shared.getFile().delete()).isTrue();
+        Assertions.assertThat(snapshot.load(project, new TypeFiler("jar"), null)).isNull();
+    }
+
+    @Test
+    public void test_skip_graphs_that_can_change() throws Exception {
+        MavenProject project = buildMavenProject("1.0");
+        DependencyGraphSnapshot snapshot = new DependencyGraphSnapshot(fileRule.newFolder("snapshots"));
+
+        // resolution of ranges, LATEST and SNAPSHOT depends on remote repositories
+        Assertions.assertThat(snapshot.save(project, null, null, graph(MavenUtils.buildArtifact("org.acme", "child", "1.0"), "[1.0,2.0)"))).isFalse();
+        Assertions.assertThat(snapshot.save(project, null, null, graph(MavenUtils.buildArtifact("org.acme", "child", "1.0"), "LATEST"))).isFalse();
+        Assertions.assertThat(snapshot.save(project, null, null, graph(MavenUtils.buildArtifact("org.acme", "child", "1.0-SNAPSHOT"), null))).isFalse();
+        Assertions.assertThat(snapshot.load(project, null, null)).isNull();
+
+        // an identity hash code changes at each build
+        ArtifactFilter identityFilter = artifact -> true;
+        DependencyNode root = graph(MavenUtils.buildArtifact("org.acme", "child", "1.0"), "1.0");
+        Assertions.assertThat(snapshot.save(project, identityFilter, null, root)).isFalse();
+        Assertions.assertThat(snapshot.load(project, identityFilter, null)).isNull();
+
+        Assertions.assertThat(snapshot.save(project, null, null, root)).isTrue();
+        Assertions.assertThat(snapshot.load(project, null, null)).isNotNull();
+    }
+
+    @Test
+    public void test_key_of_large_dependency_management() throws Exception {
+        MavenProject project = buildMavenProject("1.0");
+        DependencyManagement dependencyManagement = new DependencyManagement();
+        for (int i = 0; i < 2000; i++) {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId("org.acme.platform.bom.imported.group" + i);
+            dependency.setArtifactId("managed-artifact-" + i);
+            dependency.setVersion("1.0." + i);
+            dependencyManagement.addDependency(dependency);
+        }
+        project.getModel().setDependencyManagement(dependencyManagement);
+        Assertions.assertThat(DependencyGraphCache.modelKey(project).length()).isGreaterThan(65535);
+
+        DependencyGraphSnapshot snapshot = new DependencyGraphSnapshot(fileRule.newFolder("snapshots"));
+        DependencyNode root = graph(MavenUtils.buildArtifact("org.acme", "child", "1.0"), "1.0");
+        Assertions.assertThat(snapshot.save(project, null, null, root)).isTrue();
+        Assertions.assertThat(dump(snapshot.load(project, null, null))).isEqualTo(dump(root));
+    }
+
+    @Test
+    public void test_graph_mode_and_limits_are_part_of_the_key() throws Exception {
+        MavenProject project = buildMavenProject("1.0");
+        DependencyGraphSnapshot snapshot = new DependencyGraphSnapshot(fileRule.newFolder("snapshots"));
+        DependencyNode root = graph(MavenUtils.buildArtifact("org.acme", "child", "1.0"), "1.0");
+
+        Assertions.assertThat(snapshot.save(project, null, new DependencyGraphSession(new DefaultRepositorySystemSession(), Mode.RAW), root)).isTrue();
+        Assertions.assertThat(snapshot.load(project, null, new DependencyGraphSession(new DefaultRepositorySystemSession(), Mode.RAW))).isNotNull();
+
+        Assertions.assertThat(snapshot.load(project, null, new DependencyGraphSession(new DefaultRepositorySystemSession(), Mode.CONFLICT_MARKED))).isNull();
+        DependencyGraphSession limitedSession = new DependencyGraphSession(new DefaultRepositorySystemSession(), Mode.RAW);
+        limitedSession.setMaxDepth(5);
+        Assertions.assertThat(snapshot.load(project, null, limitedSession)).isNull();
+        limitedSession = new DependencyGraphSession(new DefaultRepositorySystemSession(), Mode.RAW);
+        limitedSession.setMaxNodes(100);
+        Assertions.assertThat(snapshot.load(project, null, limitedSession)).isNull();
+    }
+
+    @Test
+    public void test_keep_artifact_handler() throws Exception {
+        ArtifactHandler handler = mock(ArtifactHandler.class);
+        when(handler.getExtension()).thenReturn("jar");
+        when(handler.getClassifier()).thenReturn("tests");
+        when(handler.getDirectory()).thenReturn("jars");
+        when(handler.getPackaging()).thenReturn("jar");
+        when(handler.getLanguage()).thenReturn("java");
+        when(handler.isAddedToClasspath()).thenReturn(true);
+        Artifact testJar = new DefaultArtifact("org.acme", "child", "1.0", "test", "test-jar", "tests", handler);
+        testJar.setFile(fileRule.newFile("child-1.0-tests.jar"));
+        testJar.setResolved(true);
+
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g", "a", "1"), null, null, null);
+        DefaultDependencyNode child = new DefaultDependencyNode(root, testJar, null, null, null);
+        child.setChildren(Collections.emptyList());
+        root.setChildren(Arrays.asList(child));
+
+        MavenProject project = buildMavenProject("1.0");
+        DependencyGraphSnapshot snapshot = new DependencyGraphSnapshot(fileRule.newFolder("snapshots"));
+        snapshot.save(project, null, null, root);
+
+        Artifact loaded = snapshot.load(project, null, null).getChildren().get(0).getArtifact();
+        Assertions.assertThat(loaded.getType()).isEqualTo("test-jar");
+        Assertions.assertThat(loaded.getClassifier()).isEqualTo("tests");
+        Assertions.assertThat(loaded.isResolved()).isTrue();
+        ArtifactHandler loadedHandler = loaded.getArtifactHandler();
+        Assertions.assertThat(loadedHandler.getExtension()).isEqualTo("jar");
+        Assertions.assertThat(loadedHandler.getClassifier()).isEqualTo("tests");
+        Assertions.assertThat(loadedHandler.getDirectory()).isEqualTo("jars");
+        Assertions.assertThat(loadedHandler.getPackaging()).isEqualTo("jar");
+        Assertions.assertThat(loadedHandler.getLanguage()).isEqualTo("java");
+        Assertions.assertThat(loadedHandler.isAddedToClasspath()).isTrue();
+        Assertions.assertThat(loadedHandler.isIncludesDependencies()).isFalse();
+    }
+
+    @Test
+    public void test_truncated_snapshot() throws Exception {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g", "a", "1"), null, null, null);
+        DefaultDependencyNode child = new DefaultDependencyNode(root, MavenUtils.buildArtifact("org.acme", "child", "1.0"), null, null, null);
+        child.setChildren(Collections.emptyList());
+        root.setChildren(Arrays.asList(child));
+
+        MavenProject project = buildMavenProject("1.0");
+        File folder = fileRule.newFolder("snapshots");
+        DependencyGraphSnapshot snapshot = new DependencyGraphSnapshot(folder);
+        snapshot.save(project, null, null, root);
+
+        File[] files = folder.listFiles();
+        Assertions.assertThat(files).hasSize(1);
+        try (RandomAccessFile file = new RandomAccessFile(files[0], "rw")) {
+            file.setLength(file.length() - 10);
+        }
+        Assertions.assertThatThrownBy(() -> snapshot.load(project, null, null)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void test_index_out_of_range() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeHeader(out);
+        out.writeInt(0); // strings
+        out.writeInt(0); // artifacts
+        out.writeInt(1); // nodes
+        out.writeInt(5); // artifact of the node
+        Assertions.assertThatThrownBy(() -> read(bytes.toByteArray())) //
+                .isInstanceOf(IOException.class) //
+                .hasMessage("corrupt snapshot, artifact index 5 out of range");
+
+        bytes.reset();
+        writeHeader(out);
+        out.writeInt(0); // strings
+        out.writeInt(1); // artifacts
+        out.writeInt(7); // string index of groupId
+        Assertions.assertThatThrownBy(() -> read(bytes.toByteArray())) //
+                .isInstanceOf(IOException.class) //
+                .hasMessage("corrupt snapshot, string index 7 out of range");
+
+        bytes.reset();
+        writeHeader(out);
+        out.writeInt(Integer.MAX_VALUE); // strings
+        Assertions.assertThatThrownBy(() -> read(bytes.toByteArray())) //
+                .isInstanceOf(IOException.class) //
+                .hasMessage("corrupt snapshot, invalid size " + Integer.MAX_VALUE);
+    }
+
+    private DependencyNode graph(Artifact childArtifact, String versionConstraint) {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g", "a", "1"), null, null, null);
+        DefaultDependencyNode child = new DefaultDependencyNode(root, childArtifact, null, null, versionConstraint);
+        child.setChildren(Collections.emptyList());
+        root.setChildren(Arrays.asList(child));
+        return root;
+    }
+
+    private void writeHeader(DataOutputStream out) throws Exception {
+        out.writeInt(0x4D474753);
+        out.writeInt(3);
+        out.write(MessageDigest.getInstance("SHA-256").digest("key".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private DependencyNode read(byte[] snapshot) throws IOException {
+        return DependencyGraphSnapshot.read(new ByteArrayInputStream(snapshot), "key", snapshot.length);
+    }
+
+    private MavenProject buildMavenProject(String dependencyVersion) {
+        MavenProject project = new MavenProject();
+        project.setGroupId("g");
+        project.setArtifactId("a");
+        project.setVersion("1");
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("org.acme");
+        dependency.setArtifactId("child");
+        dependency.setVersion(dependencyVersion);
+        project.getModel().addDependency(dependency);
+        return project;
+    }
+
+    private List<String> dump(DependencyNode rootNode) {
+        List<String> nodes = new ArrayList<>();
+        rootNode.accept(new DependencyNodeVisitor() {
+            @Override
+            public boolean visit(DependencyNode node) {
+                nodes.add(node.toNodeString() + " " + node.getArtifact().getFile() + " " + node.getChildren().size());
+                return true;
+            }
+
+            @Override
+            public boolean endVisit(DependencyNode node) {
+                return true;
+            }
+        });
+        return nodes;
+    }
+
+}
@@ -27,11 +27,25 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DefaultArtifact;
@@ -41,16 +55,24 @@ import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingRequest;
 import org.apache.maven.shared.dependency.graph.DependencyGraphBuilder;
+import org.apache.maven.shared.dependency.graph.DependencyGraphBuilderException;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
 import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolver;
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolverException;
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResult;
 import org.assertj.core.api.Assertions;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.Assume;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import com.github.nfalco79.maven.MavenUtils;
 import com.github.nfalco79.maven.artifact.resolver.filter.TypeFiler;
+import com.github.nfalco79.maven.dependency.DependencyResolverListener.Phase;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession.Mode;
 
 public class DependencyResolverTest {
 
@@ -88,14 +110,681 @@ public class DependencyResolverTest {
         rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null)));
         rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
 
+        // the remote repository keeps serving the same broken file
+        File emptyFile = artifact.getFile();
+        ArtifactResolver artifactResolver = mockArtifactResolver(requested -> emptyFile);
+
+        DependencyGraphBuilder graphBuilder = buildGraphBuilder(rootNode);
         DependencyResolver resolver = spy(
-                new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"), mock(Log.class), mock(ArtifactResolver.class)));
+                new DependencyResolver(buildMavenSession(mavenProject), mavenProject, graphBuilder, new TypeFiler("jar"), mock(Log.class), artifactResolver));
         doNothing().when(resolver).removeResolvedArtifact(artifact);
 
         int maxAttempts = 2;
         Assertions.assertThatThrownBy(() -> resolver.resolveDependencies(maxAttempts))
                 .hasMessage("Fail to download artifact " + artifact.toString() + ", size is 0");
         verify(resolver, times(maxAttempts)).removeResolvedArtifact(artifact);
+        // retry does not build again the dependency graph
+        verify(graphBuilder, times(1)).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+        verify(artifactResolver, times(maxAttempts - 1)).resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class));
+    }
+
+    @Test
+    public void test_retry_resolves_only_purged_artifacts() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultArtifact artifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        artifact.setFile(fileRule.newFile());
+        Artifact validArtifact = buildArtifactAndJAR("com.acme", "a2", "1.0");
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null), new DefaultDependencyNode(rootNode, validArtifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        File validFile = buildJar(artifact);
+        ArtifactResolver artifactResolver = mockArtifactResolver(requested -> validFile);
+
+        DependencyGraphBuilder graphBuilder = buildGraphBuilder(rootNode);
+        DependencyResolver resolver = spy(new DependencyResolver(buildMavenSession(mavenProject), mavenProject, graphBuilder, new TypeFiler("jar"), mock(Log.class), artifactResolver));
+        doNothing().when(resolver).removeResolvedArtifact(artifact);
+
+        Assertions.assertThat(resolver.resolveDependencies(2)).isEqualTo(rootNode);
+        Assertions.assertThat(artifact.getFile()).isEqualTo(validFile);
+        verify(graphBuilder, times(1)).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+        verify(artifactResolver, times(1)).resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class));
+    }
+
+    @Test
+    public void test_index_local_repository() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultArtifact artifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        Artifact validArtifact = buildArtifactAndJAR("com.acme", "a2", "1.0");
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null), new DefaultDependencyNode(rootNode, validArtifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        // download in the folder already indexed validating the other artifact
+        File artifactFile = new File(validArtifact.getFile().getParentFile(), "a1-1.0.jar");
+        ArtifactResolver artifactResolver = mockArtifactResolver(requested -> {
+            FileUtils.copyFile(buildJar(artifact), artifactFile);
+            return artifactFile;
+        });
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setIndexLocalRepository(true);
+
+        Assertions.assertThat(resolver.resolveDependencies()).isEqualTo(rootNode);
+        Assertions.assertThat(artifact.getFile()).isEqualTo(artifactFile);
+    }
+
+    @Test
+    public void test_json_summary() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultArtifact artifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        artifact.setFile(fileRule.newFile());
+        Artifact validArtifact = buildArtifactAndJAR("com.acme", "a2", "1.0");
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null), new DefaultDependencyNode(rootNode, validArtifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        File validFile = buildJar(artifact);
+        ArtifactResolver artifactResolver = mockArtifactResolver(requested -> validFile);
+
+        DependencyResolver resolver = spy(new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"), mock(Log.class), artifactResolver));
+        doNothing().when(resolver).removeResolvedArtifact(artifact);
+        File summaryFile = new File(fileRule.getRoot(), "target/resolution-summary.json");
+        resolver.setListener(new JsonSummaryListener(summaryFile));
+
+        resolver.resolveDependencies(2);
+
+        String summary = FileUtils.readFileToString(summaryFile, StandardCharsets.UTF_8);
+        Assertions.assertThat(summary) //
+                .contains("\"project\": \"g:a:1\"") //
+                .contains("\"success\": true") //
+                .containsPattern("\"purge\": \\{ \"durationMs\": \\d+, \"artifacts\": 1 \\}") //
+                .contains("\"graphCacheHits\": 0") //
+                .contains("\"artifactsValidated\": 3") //
+                .contains("\"bytesValidated\": " + (validArtifact.getFile().length() + validFile.length())) //
+                .contains("\"retries\": 1") //
+                .contains("\"purges\": 1");
+    }
+
+    @Test
+    public void test_async_resolution() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultArtifact artifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        artifact.setFile(fileRule.newFile());
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        File validFile = buildJar(artifact);
+        ArtifactResolver artifactResolver = mockArtifactResolver(requested -> validFile);
+
+        DependencyResolver resolver = spy(new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"), mock(Log.class), artifactResolver));
+        doNothing().when(resolver).removeResolvedArtifact(artifact);
+
+        // the empty file is purged and resolved again at second attempt
+        Assertions.assertThat(resolver.resolveDependenciesAsync(2).get(10, TimeUnit.SECONDS)).isEqualTo(rootNode);
+        Assertions.assertThat(artifact.getFile()).isEqualTo(validFile);
+        Assertions.assertThat(resolver.resolveDependenciesAsync(1).get(10, TimeUnit.SECONDS)).isEqualTo(rootNode);
+    }
+
+    @Test
+    public void test_async_timeout_stops_pending_resolutions() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+        DefaultDependencyNode rootNode = buildRootWithChildren("a");
+
+        CountDownLatch resolving = new CountDownLatch(1);
+        ArtifactResolver artifactResolver = mockArtifactResolver(artifact -> {
+            resolving.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                // a resolver that completes the download, next ones must not start
+                Thread.currentThread().interrupt();
+            }
+            return buildJar(artifact);
+        });
+
+        CountDownLatch finished = new CountDownLatch(1);
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setListener(new DependencyResolverListener() {
+            @Override
+            public void resolutionFinished(MavenProject project, Throwable failure) {
+                finished.countDown();
+            }
+        });
+
+        CompletableFuture<DependencyNode> future = resolver.resolveDependenciesAsync(1, 200, TimeUnit.MILLISECONDS);
+        Assertions.assertThat(resolving.await(10, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+
+        Assertions.assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+        verify(artifactResolver, times(1)).resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class));
+    }
+
+    @Test
+    public void test_async_timeout_completes_when_resolver_is_reusable() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+        DefaultDependencyNode rootNode = buildRootWithChildren("a");
+
+        AtomicBoolean firstResolution = new AtomicBoolean(true);
+        ArtifactResolver artifactResolver = mockArtifactResolver(artifact -> {
+            if (firstResolution.getAndSet(false)) {
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    // slow to stop, the future must wait for it
+                    Thread.sleep(200);
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return buildJar(artifact);
+        });
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        AtomicInteger finished = new AtomicInteger();
+        resolver.setListener(new DependencyResolverListener() {
+            @Override
+            public void resolutionFinished(MavenProject project, Throwable failure) {
+                finished.incrementAndGet();
+            }
+        });
+
+        CompletableFuture<DependencyNode> future = resolver.resolveDependenciesAsync(1, 200, TimeUnit.MILLISECONDS);
+        Assertions.assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        Assertions.assertThat(finished.get()).isEqualTo(1);
+
+        Assertions.assertThat(resolver.resolveDependencies()).isEqualTo(rootNode);
+        Assertions.assertThat(finished.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_reject_resolution_until_cancelled_one_stops() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+        DefaultDependencyNode rootNode = buildRootWithChildren("a");
+
+        CountDownLatch resolving = new CountDownLatch(1);
+        CountDownLatch stop = new CountDownLatch(1);
+        ArtifactResolver artifactResolver = mockArtifactResolver(artifact -> {
+            resolving.countDown();
+            boolean stopped = false;
+            while (!stopped) {
+                try {
+                    stopped = stop.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // ignored until the test allows to stop
+                }
+            }
+            return buildJar(artifact);
+        });
+
+        CountDownLatch finished = new CountDownLatch(1);
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setListener(new DependencyResolverListener() {
+            @Override
+            public void resolutionFinished(MavenProject project, Throwable failure) {
+                finished.countDown();
+            }
+        });
+
+        CompletableFuture<DependencyNode> future = resolver.resolveDependenciesAsync(1);
+        Assertions.assertThat(resolving.await(10, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(future.cancel(true)).isTrue();
+
+        Assertions.assertThatThrownBy(() -> resolver.resolveDependencies()).isInstanceOf(IllegalStateException.class);
+        Assertions.assertThatThrownBy(() -> resolver.resolveDependenciesAsync(1)).isInstanceOf(IllegalStateException.class);
+
+        stop.countDown();
+        Assertions.assertThat(finished.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void test_collect_all_failures() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultArtifact artifact1 = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        artifact1.setFile(fileRule.newFile());
+        DefaultArtifact artifact2 = MavenUtils.buildArtifact("com.acme", "a2", "1.0");
+        artifact2.setFile(fileRule.newFile());
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact1, null, null, null), new DefaultDependencyNode(rootNode, artifact2, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        DependencyResolver resolver = spy(
+                new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"), mock(Log.class), mock(ArtifactResolver.class)));
+        doNothing().when(resolver).removeResolvedArtifact(any(Artifact.class));
+        resolver.setCollectAllFailures(true);
+
+        Assertions.assertThatThrownBy(() -> resolver.resolveDependencies()) //
+                .isInstanceOfSatisfying(EmptyArtifactException.class, e -> Assertions.assertThat(e.getArtifacts()).containsExactly(artifact1, artifact2));
+        verify(resolver).removeResolvedArtifact(artifact1);
+        verify(resolver).removeResolvedArtifact(artifact2);
+    }
+
+    @Test
+    public void test_collect_all_failures_keeps_each_reason() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultArtifact emptyArtifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        emptyArtifact.setFile(fileRule.newFile());
+        Artifact corruptedArtifact = buildArtifactAndJAR("com.acme", "a2", "1.0");
+        FileUtils.writeStringToFile(new File(corruptedArtifact.getFile().getPath() + ".sha1"), "da39a3ee5e6b4b0d3255bfef95601890afd80709", StandardCharsets.US_ASCII);
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, emptyArtifact, null, null, null), new DefaultDependencyNode(rootNode, corruptedArtifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        DependencyResolver resolver = spy(
+                new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"), mock(Log.class), mock(ArtifactResolver.class)));
+        doNothing().when(resolver).removeResolvedArtifact(any(Artifact.class));
+        resolver.setCollectAllFailures(true);
+        resolver.setVerifyChecksums(true);
+
+        Assertions.assertThatThrownBy(() -> resolver.resolveDependencies()) //
+                .hasMessageContaining(emptyArtifact.toString() + ", size is 0") //
+                .hasMessageContaining(corruptedArtifact.toString() + ", checksum does not match") //
+                .isInstanceOfSatisfying(EmptyArtifactException.class, e -> {
+                    Assertions.assertThat(e.getArtifacts()).containsExactly(emptyArtifact, corruptedArtifact);
+                    Assertions.assertThat(e.getFailures()).hasSize(2);
+                    Assertions.assertThat(e.getFailures().get(1)).isInstanceOf(CorruptedArtifactException.class);
+                    Assertions.assertThat(e.getSuppressed()).containsExactlyElementsOf(e.getFailures());
+                });
+    }
+
+    @Test
+    public void test_verify_checksums() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        Artifact artifact = buildArtifactAndJAR("com.acme", "a1", "1.0");
+        FileUtils.writeStringToFile(new File(artifact.getFile().getPath() + ".sha1"), "da39a3ee5e6b4b0d3255bfef95601890afd80709", StandardCharsets.US_ASCII);
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        DependencyResolver resolver = spy(
+                new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"), mock(Log.class), mock(ArtifactResolver.class)));
+        doNothing().when(resolver).removeResolvedArtifact(artifact);
+
+        Assertions.assertThat(resolver.resolveDependencies()).isEqualTo(rootNode);
+
+        resolver.setVerifyChecksums(true);
+        Assertions.assertThatThrownBy(() -> resolver.resolveDependencies()) //
+                .isInstanceOf(CorruptedArtifactException.class) //
+                .hasMessage("Fail to download artifact " + artifact.toString() + ", checksum does not match");
+        verify(resolver).removeResolvedArtifact(artifact);
+    }
+
+    @Test
+    public void test_validate_artifacts_of_cached_graph() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        Artifact artifact = buildArtifactAndJAR("com.acme", "a1", "1.0");
+        FileUtils.writeStringToFile(new File(artifact.getFile().getPath() + ".sha1"), "da39a3ee5e6b4b0d3255bfef95601890afd80709", StandardCharsets.US_ASCII);
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        DependencyGraphCache cache = new DependencyGraphCache(10, 100);
+        DependencyGraphBuilder graphBuilder = buildGraphBuilder(rootNode);
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, graphBuilder, new TypeFiler("jar"), mock(Log.class),
+                mock(ArtifactResolver.class));
+        resolver.setGraphCache(cache);
+        resolver.resolveDependencies();
+
+        // another execution of the same module verifies checksums
+        List<Phase> phases = new ArrayList<>();
+        AtomicInteger cacheHits = new AtomicInteger();
+        resolver = spy(new DependencyResolver(buildMavenSession(mavenProject), mavenProject, graphBuilder, new TypeFiler("jar"), mock(Log.class),
+                mock(ArtifactResolver.class)));
+        doNothing().when(resolver).removeResolvedArtifact(any(Artifact.class));
+        resolver.setGraphCache(cache);
+        resolver.setVerifyChecksums(true);
+        resolver.setListener(new DependencyResolverListener() {
+            @Override
+            public void graphCacheHit(MavenProject project) {
+                cacheHits.incrementAndGet();
+            }
+
+            @Override
+            public void phaseCompleted(Phase phase, long durationNanos, int artifacts) {
+                phases.add(phase);
+            }
+        });
+
+        Assertions.assertThatThrownBy(resolver::resolveDependencies).isInstanceOf(CorruptedArtifactException.class);
+        verify(graphBuilder, times(1)).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+        Assertions.assertThat(cacheHits.get()).isEqualTo(1);
+        Assertions.assertThat(phases).contains(Phase.GRAPH_BUILD, Phase.TRAVERSAL, Phase.RESOLUTION);
+        Assertions.assertThat(cache.getFile(artifact)).isNull();
+    }
+
+    @Test
+    public void test_remove_only_broken_file() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        File folder = fileRule.newFolder("com", "acme", "a1", "1.0");
+        File jar = new File(folder, "a1-1.0.jar");
+        File sha1 = new File(folder, "a1-1.0.jar.sha1");
+        File pom = new File(folder, "a1-1.0.pom");
+        File sources = new File(folder, "a1-1.0-sources.jar");
+        for (File file : Arrays.asList(jar, sha1, pom, sources)) {
+            FileUtils.touch(file);
+        }
+        File tracking = new File(folder, "_remote.repositories");
+        FileUtils.writeLines(tracking, Arrays.asList("#NOTE: internal file", "a1-1.0.jar>central=", "a1-1.0.pom>central=", "a1-1.0-sources.jar>central="));
+
+        DefaultArtifact artifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        artifact.setFile(jar);
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, mock(DependencyGraphBuilder.class), new TypeFiler("jar"),
+                mock(Log.class), mock(ArtifactResolver.class));
+        resolver.removeResolvedArtifact(artifact);
+
+        Assertions.assertThat(jar).doesNotExist();
+        Assertions.assertThat(sha1).doesNotExist();
+        Assertions.assertThat(pom).exists();
+        Assertions.assertThat(sources).exists();
+        Assertions.assertThat(FileUtils.readLines(tracking, StandardCharsets.UTF_8)) //
+                .containsExactly("#NOTE: internal file", "a1-1.0.pom>central=", "a1-1.0-sources.jar>central=");
+    }
+
+    @Test
+    public void test_concurrent_removals_update_tracking_file() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        File folder = fileRule.newFolder("com", "acme", "a1", "1.0");
+        List<String> entries = new ArrayList<>();
+        List<Artifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            File jar = new File(folder, "a1-1.0-c" + i + ".jar");
+            FileUtils.touch(jar);
+            entries.add(jar.getName() + ">central=");
+            DefaultArtifact artifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+            artifact.setFile(jar);
+            artifacts.add(artifact);
+        }
+        entries.add("a1-1.0.pom>central=");
+        File tracking = new File(folder, "_remote.repositories");
+        FileUtils.writeLines(tracking, entries);
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, mock(DependencyGraphBuilder.class), new TypeFiler("jar"),
+                mock(Log.class), mock(ArtifactResolver.class));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> removals = new ArrayList<>();
+            for (Artifact artifact : artifacts) {
+                removals.add(executor.submit(() -> {
+                    resolver.removeResolvedArtifact(artifact);
+                    return null;
+                }));
+            }
+            for (Future<?> removal : removals) {
+                removal.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // no update is lost
+        Assertions.assertThat(FileUtils.readLines(tracking, StandardCharsets.UTF_8)).containsExactly("a1-1.0.pom>central=");
+    }
+
+    @Test
+    public void test_async_purge() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultArtifact artifact = MavenUtils.buildArtifact("com.acme", "a1", "1.0");
+        File emptyFile = fileRule.newFile("a1-1.0.jar");
+        artifact.setFile(emptyFile);
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        rootNode.setChildren(Arrays.asList(new DefaultDependencyNode(rootNode, artifact, null, null, null)));
+        rootNode.getChildren().forEach(n -> ((DefaultDependencyNode) n).setChildren(Collections.emptyList()));
+
+        File validFile = buildJar(artifact);
+        ArtifactResolver artifactResolver = mockArtifactResolver(requested -> {
+            // purge must be completed before the artifact is downloaded again
+            Assertions.assertThat(emptyFile).doesNotExist();
+            return validFile;
+        });
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setAsyncPurge(true);
+        List<Integer> purges = new ArrayList<>();
+        resolver.setListener(new DependencyResolverListener() {
+            @Override
+            public void phaseCompleted(Phase phase, long durationNanos, int artifacts) {
+                if (phase == Phase.PURGE) {
+                    purges.add(artifacts);
+                }
+            }
+        });
+
+        Assertions.assertThat(resolver.resolveDependencies(2)).isEqualTo(rootNode);
+        Assertions.assertThat(artifact.getFile()).isEqualTo(validFile);
+        // reported once, when the purge is awaited before the second attempt
+        Assertions.assertThat(purges).containsExactly(1);
+    }
+
+    @Test
+    public void test_concurrent_resolution() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(rootNode, MavenUtils.buildArtifact("com.acme", "a" + i, "1.0"), null, null, null);
+            child.setChildren(Collections.emptyList());
+            children.add(child);
+        }
+        rootNode.setChildren(children);
+
+        ArtifactResolver artifactResolver = mockArtifactResolver(this::buildJar);
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setResolverThreads(4);
+
+        resolver.resolveDependencies();
+        verify(artifactResolver, times(children.size())).resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class));
+        Assertions.assertThat(children).allMatch(n -> n.getArtifact().getFile() != null);
+    }
+
+    @Test
+    public void test_execution_strategy() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+        DefaultDependencyNode rootNode = buildRootWithChildren("a");
+
+        ArtifactResolver artifactResolver = mockArtifactResolver(this::buildJar);
+
+        ExecutionStrategy executionStrategy = spy(new ThreadPoolExecutionStrategy());
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setResolverThreads(8);
+        resolver.setExecutionStrategy(executionStrategy);
+
+        resolver.resolveDependencies();
+        // pool is never larger than the artifacts to resolve
+        verify(executionStrategy).newExecutor(rootNode.getChildren().size());
+        Assertions.assertThat(rootNode.getChildren()).allMatch(n -> n.getArtifact().getFile() != null);
+    }
+
+    @Test
+    public void test_virtual_threads_fall_back_to_thread_pool() throws Exception {
+        Assume.assumeFalse(VirtualThreadExecutionStrategy.isSupported());
+
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+        DefaultDependencyNode rootNode = buildRootWithChildren("a");
+        Log log = mock(Log.class);
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"), log,
+                mockArtifactResolver(this::buildJar));
+        resolver.setResolverThreads(2);
+        resolver.setExecutionStrategy(new VirtualThreadExecutionStrategy());
+
+        resolver.resolveDependencies();
+        verify(log).warn("Virtual threads require Java 21 or later, artifacts are resolved by a pool of platform threads");
+        Assertions.assertThat(rootNode.getChildren()).allMatch(n -> n.getArtifact().getFile() != null);
+    }
+
+    @Test
+    public void test_streaming_resolution() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(rootNode, MavenUtils.buildArtifact("com.acme", "a" + i, "1.0"), null, null, null);
+            child.setChildren(Collections.emptyList());
+            children.add(child);
+        }
+        rootNode.setChildren(children);
+
+        ArtifactResolver artifactResolver = mockArtifactResolver(this::buildJar);
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setStreamingResolution(true);
+        resolver.setResolverThreads(2);
+
+        resolver.resolveDependencies();
+        verify(artifactResolver, times(children.size())).resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class));
+        Assertions.assertThat(children).allMatch(n -> n.getArtifact().getFile() != null);
+    }
+
+    @Test
+    public void test_graph_cache_between_modules() throws Exception {
+        MavenProject moduleA = buildMavenProject("g", "a", "1");
+        MavenProject moduleB = buildMavenProject("g", "b", "1");
+        DefaultDependencyNode rootA = buildRootWithChildren("a");
+        DefaultDependencyNode rootB = buildRootWithChildren("b");
+
+        ArtifactResolver artifactResolver = mockArtifactResolver(this::buildJar);
+
+        DependencyGraphCache cache = new DependencyGraphCache(10, 100);
+        DependencyGraphBuilder graphBuilderA = buildGraphBuilder(rootA);
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(moduleA), moduleA, graphBuilderA, new TypeFiler("jar"), mock(Log.class), artifactResolver);
+        resolver.setGraphCache(cache);
+        Assertions.assertThat(resolver.resolveDependencies()).isSameAs(rootA);
+
+        // same module again, the graph is served from cache
+        resolver = new DependencyResolver(buildMavenSession(moduleA), moduleA, graphBuilderA, new TypeFiler("jar"), mock(Log.class), artifactResolver);
+        resolver.setGraphCache(cache);
+        DependencyNode cachedA = resolver.resolveDependencies();
+        // callers never share the same graph
+        Assertions.assertThat(cachedA).isNotSameAs(rootA);
+        Assertions.assertThat(cachedA.getArtifact()).isNotSameAs(rootA.getArtifact()).isEqualTo(rootA.getArtifact());
+        Assertions.assertThat(cachedA.getChildren()).extracting(n -> n.getArtifact().getFile()) //
+                .containsExactlyElementsOf(rootA.getChildren().stream().map(n -> n.getArtifact().getFile()).collect(Collectors.toList()));
+        verify(graphBuilderA).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+        Assertions.assertThat(cache.getGraphHits()).isEqualTo(1);
+
+        // another module shares the same artifacts that are not resolved again
+        resolver = new DependencyResolver(buildMavenSession(moduleB), moduleB, buildGraphBuilder(rootB), new TypeFiler("jar"), mock(Log.class), artifactResolver);
+        resolver.setGraphCache(cache);
+        Assertions.assertThat(resolver.resolveDependencies()).isSameAs(rootB);
+        verify(artifactResolver, times(rootA.getChildren().size())).resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class));
+        Assertions.assertThat(rootB.getChildren()).allMatch(n -> n.getArtifact().getFile() != null);
+        Assertions.assertThat(cache.getArtifactHits()).isEqualTo(rootB.getChildren().size());
+    }
+
+    @Test
+    public void test_graph_cache_by_graph_mode_and_limits() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+        DefaultDependencyNode rootNode = buildRootWithChildren("a");
+        DependencyGraphBuilder graphBuilder = buildGraphBuilder(rootNode);
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, graphBuilder, new TypeFiler("jar"), mock(Log.class),
+                mockArtifactResolver(this::buildJar));
+        resolver.setGraphCache(new DependencyGraphCache(10, 100));
+        resolver.resolveDependencies();
+        resolver.resolveDependencies();
+        verify(graphBuilder, times(1)).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+
+        // a raw graph is not a conflict marked graph
+        resolver.setGraphMode(Mode.CONFLICT_MARKED);
+        resolver.resolveDependencies();
+        verify(graphBuilder, times(2)).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+
+        // a graph built without limits could exceed them
+        resolver.setMaxGraphNodes(1000);
+        resolver.resolveDependencies();
+        resolver.setMaxGraphDepth(10);
+        resolver.resolveDependencies();
+        verify(graphBuilder, times(4)).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+
+        resolver.setGraphMode(Mode.RAW);
+        resolver.setMaxGraphDepth(0);
+        resolver.setMaxGraphNodes(0);
+        resolver.resolveDependencies();
+        verify(graphBuilder, times(4)).buildDependencyGraph(any(ProjectBuildingRequest.class), any(ArtifactFilter.class));
+    }
+
+    @Test
+    public void test_graph_session_settings() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, mock(DependencyGraphBuilder.class), new TypeFiler("jar"),
+                mock(Log.class), mock(ArtifactResolver.class));
+        resolver.setGraphMode(Mode.CONFLICT_MARKED);
+        resolver.setMaxGraphDepth(20);
+        resolver.setMaxGraphNodes(10000);
+
+        DependencyGraphSession graphSession = resolver.createGraphSession(new DefaultRepositorySystemSession());
+        Assertions.assertThat(graphSession.getMode()).isEqualTo(Mode.CONFLICT_MARKED);
+        Assertions.assertThat(graphSession.getMaxDepth()).isEqualTo(20);
+        Assertions.assertThat(graphSession.getMaxNodes()).isEqualTo(10000);
+    }
+
+    @Test
+    public void test_concurrent_resolution_failure() throws Exception {
+        MavenProject mavenProject = buildMavenProject("g", "a", "1");
+
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("org.acme", "core", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(rootNode, MavenUtils.buildArtifact("com.acme", "a" + i, "1.0"), null, null, null);
+            child.setChildren(Collections.emptyList());
+            children.add(child);
+        }
+        rootNode.setChildren(children);
+
+        ArtifactResolver artifactResolver = mock(ArtifactResolver.class);
+        when(artifactResolver.resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class))) //
+                .thenThrow(new ArtifactResolverException("not found", new IOException()));
+
+        DependencyResolver resolver = new DependencyResolver(buildMavenSession(mavenProject), mavenProject, buildGraphBuilder(rootNode), new TypeFiler("jar"),
+                mock(Log.class), artifactResolver);
+        resolver.setResolverThreads(2);
+
+        Assertions.assertThatThrownBy(() -> resolver.resolveDependencies()) //
+                .isInstanceOf(DependencyGraphBuilderException.class) //
+                .hasMessageStartingWith("can not resolve artifact com.acme:a");
+    }
+
+    private DefaultDependencyNode buildRootWithChildren(String artifactId) throws Exception {
+        DefaultDependencyNode rootNode = new DefaultDependencyNode(null, buildArtifactAndJAR("g", artifactId, "1"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(rootNode, MavenUtils.buildArtifact("com.acme", "shared" + i, "1.0"), null, null, null);
+            child.setChildren(Collections.emptyList());
+            children.add(child);
+        }
+        rootNode.setChildren(children);
+        return rootNode;
     }
 
     private File buildJar(Artifact artifact) throws IOException {
@@ -126,6 +815,7 @@ public class DependencyResolverTest {
         when(mavenSession.getCurrentProject()).thenReturn(mavenProject);
         when(mavenSession.getProjectBuildingRequest()).thenReturn(mock(ProjectBuildingRequest.class));
         when(mavenSession.getProjects()).thenReturn(Collections.emptyList());
+        when(mavenSession.getRepositorySession()).thenReturn(new DefaultRepositorySystemSession());
         return mavenSession;
     }
 
@@ -141,4 +831,25 @@ public class DependencyResolverTest {
         artifact.setFile(buildJar(artifact));
         return artifact;
     }
+
+    private ArtifactResolver mockArtifactResolver(ArtifactDownload download) throws Exception {
+        ArtifactResolver artifactResolver = mock(ArtifactResolver.class);
+        when(artifactResolver.resolveArtifact(any(ProjectBuildingRequest.class), any(Artifact.class))).thenAnswer(invocation -> {
+            Artifact artifact = invocation.getArgument(1);
+            Artifact resolved = MavenUtils.buildArtifact(artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion());
+            resolved.setFile(download.download(artifact));
+            ArtifactResult result = mock(ArtifactResult.class);
+            when(result.getArtifact()).thenReturn(resolved);
+            return result;
+        });
+        return artifactResolver;
+    }
+
+    /**
+     * Provides the file served by the remote repository for an artifact.
+     */
+    @FunctionalInterface
+    private interface ArtifactDownload {
+        File download(Artifact artifact) throws Exception;
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.shared.transfer.artifact.ArtifactCoordinate;
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolver;
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResolverException;
+import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResult;
+
+/**
+ * A fake {@link ArtifactResolver} that downloads an artifact copying it, with
+ * its checksum files, from a remote repository folder to a local repository
+ * folder, injecting latency and faults.
+ * <p>
+ * Faults depend only on the seed, the artifact and the number of the
+ * download, the same downloads are broken at each run regardless of the
+ * thread scheduling. Only the first downloads of an artifact could be broken,
+ * see {@link #setFaultyDownloads(int)}.
+ */
+class FaultInjectingArtifactResolver implements ArtifactResolver {
+
+    /**
+     * The faults that could be injected in a download.
+     */
+    enum Fault {
+        NONE, EMPTY, TRUNCATED, ERROR
+    }
+
+    private static final String[] CHECKSUMS = { ".sha1", ".sha256" };
+
+    private final File remoteRepository;
+    private final File localRepository;
+    private final long seed;
+    private LongSupplier latency = () -> 0;
+    private double emptyRate;
+    private double truncatedRate;
+    private double errorRate;
+    private int faultyDownloads = 1;
+    private final Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+    private final Map<Fault, LongAdder> faults = new EnumMap<>(Fault.class);
+
+    FaultInjectingArtifactResolver(File remoteRepository, File localRepository, long seed) {
+        this.remoteRepository = remoteRepository;
+        this.localRepository = localRepository;
+        this.seed = seed;
+        for (Fault fault : Fault.values()) {
+            faults.put(fault, new LongAdder());
+        }
+    }
+
+    /**
+     * Returns a latency of the same duration for each download.
+     *
+     * @param millis
+     *            the duration of a download
+     * @return the latency in nanoseconds
+     */
+    static LongSupplier fixedLatency(long millis) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        return () -> nanos;
+    }
+
+    /**
+     * Returns a log-normal latency, most downloads take about the median and
+     * few take much longer as with a real remote repository.
+     *
+     * @param medianMillis
+     *            the median duration of a download
+     * @param sigma
+     *            the shape of the distribution, 1 gives a p99 about ten
+     *            times the median
+     * @return the latency in nanoseconds
+     */
+    static LongSupplier logNormalLatency(double medianMillis, double sigma) {
+        return () -> (long) (medianMillis * 1000000 * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    @Override
+    public ArtifactResult resolveArtifact(ProjectBuildingRequest buildingRequest, Artifact artifact) throws ArtifactResolverException {
+        String path = path(artifact);
+        int download = downloads.computeIfAbsent(path, p -> new AtomicInteger()).getAndIncrement();
+        long nanos = latency.getAsLong();
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+
+        Fault fault = fault(path, download);
+        faults.get(fault).increment();
+        if (fault == Fault.ERROR) {
+            throw new ArtifactResolverException("Could not transfer artifact " + artifact, new IOException("Connection reset"));
+        }
+        File source = new File(remoteRepository, path);
+        if (!source.isFile()) {
+            throw new ArtifactResolverException("Could not find artifact " + artifact + " in " + remoteRepository, null);
+        }
+
+        File target = new File(localRepository, path);
+        try {
+            byte[] content = Files.readAllBytes(source.toPath());
+            if (fault == Fault.EMPTY) {
+                content = new byte[0];
+            } else if (fault == Fault.TRUNCATED) {
+                content = Arrays.copyOf(content, content.length / 2);
+            }
+            Files.createDirectories(target.getParentFile().toPath());
+            File tmp = File.createTempFile(target.getName(), ".part", target.getParentFile());
+            Files.write(tmp.toPath(), content);
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            for (String checksum : CHECKSUMS) {
+                File checksumFile = new File(source.getPath() + checksum);
+                if (checksumFile.isFile()) {
+                    Files.copy(checksumFile.toPath(), new File(target.getPath() + checksum).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            throw new ArtifactResolverException("Could not write artifact " + artifact + " to " + target, e);
+        }
+
+        Artifact resolved = ArtifactUtils.copyArtifact(artifact);
+        resolved.setFile(target);
+        return () -> resolved;
+    }
+
+    @Override
+    public ArtifactResult resolveArtifact(ProjectBuildingRequest buildingRequest, ArtifactCoordinate coordinate) {
+        throw new UnsupportedOperationException();
+    }
+
+    private Fault fault(String path, int download) {
+        if (download >= faultyDownloads) {
+            return Fault.NONE;
+        }
+        double value = new Random(seed * 31 + path.hashCode() * 17L + download).nextDouble();
+        if (value < errorRate) {
+            return Fault.ERROR;
+        } else if (value < errorRate + emptyRate) {
+            return Fault.EMPTY;
+        } else if (value < errorRate + emptyRate + truncatedRate) {
+            return Fault.TRUNCATED;
+        }
+        return Fault.NONE;
+    }
+
+    /**
+     * Returns the path of an artifact in a repository.
+     *
+     * @param artifact
+     *            the artifact
+     * @return the relative path of the artifact file
+     */
+    static String path(Artifact artifact) {
+        StringBuilder path = new StringBuilder() //
+                .append(artifact.getGroupId().replace('.', '/')).append('/') //
+                .append(artifact.getArtifactId()).append('/') //
+                .append(artifact.getVersion()).append('/') //
+                .append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (artifact.getClassifier() != null) {
+            path.append('-').append(artifact.getClassifier());
+        }
+        return path.append('.').append(artifact.getArtifactHandler().getExtension()).toString();
+    }
+
+    void setLatency(LongSupplier latency) {
+        this.latency = latency;
+    }
+
+    void setEmptyRate(double emptyRate) {
+        this.emptyRate = emptyRate;
+    }
+
+    void setTruncatedRate(double truncatedRate) {
+        this.truncatedRate = truncatedRate;
+    }
+
+    void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Set how many downloads of the same artifact could be broken.
+     *
+     * @param faultyDownloads
+     *            the number of downloads with faults
+     */
+    void setFaultyDownloads(int faultyDownloads) {
+        this.faultyDownloads = faultyDownloads;
+    }
+
+    long getFaults(Fault fault) {
+        return faults.get(fault).sum();
+    }
+
+    long getDownloads() {
+        return downloads.values().stream().mapToLong(AtomicInteger::get).sum();
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalRepositoryIndexTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void test_folder_is_listed_once() throws Exception {
+        File folder = fileRule.newFolder("com", "acme", "a", "1.0");
+        File jar = new File(folder, "a-1.0.jar");
+        FileUtils.writeStringToFile(jar, "content", StandardCharsets.UTF_8);
+        File pom = new File(folder, "a-1.0.pom");
+        FileUtils.writeStringToFile(pom, "<project/>", StandardCharsets.UTF_8);
+        File empty = new File(folder, "a-1.0-sources.jar");
+        Assertions.assertThat(empty.createNewFile()).isTrue();
+
+        LocalRepositoryIndex index = new LocalRepositoryIndex();
+        Assertions.assertThat(index.length(jar)).isEqualTo(jar.length());
+        Assertions.assertThat(index.lastModified(jar)).isEqualTo(jar.lastModified());
+        Assertions.assertThat(index.length(pom)).isEqualTo(pom.length());
+        Assertions.assertThat(index.exists(empty)).isTrue();
+        Assertions.assertThat(index.length(empty)).isZero();
+        Assertions.assertThat(index.exists(new File(folder, "a-1.0.war"))).isFalse();
+        Assertions.assertThat(index.getScans()).isEqualTo(1);
+
+        File missing = new File(folder.getParentFile(), "2.0/a-2.0.jar");
+        Assertions.assertThat(index.exists(missing)).isFalse();
+        Assertions.assertThat(index.length(missing)).isZero();
+        Assertions.assertThat(index.getScans()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_invalidated_folder_is_listed_again() throws Exception {
+        File jar = new File(fileRule.newFolder("a", "1.0"), "a-1.0.jar");
+
+        LocalRepositoryIndex index = new LocalRepositoryIndex();
+        Assertions.assertThat(index.exists(jar)).isFalse();
+
+        FileUtils.writeStringToFile(jar, "content", StandardCharsets.UTF_8);
+        // stale until invalidated
+        Assertions.assertThat(index.exists(jar)).isFalse();
+        index.invalidate(jar);
+        Assertions.assertThat(index.length(jar)).isEqualTo(jar.length());
+        Assertions.assertThat(index.getScans()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+
+import com.github.nfalco79.maven.MavenUtils;
+import com.github.nfalco79.maven.artifact.resolver.filter.TypeFiler;
+import com.github.nfalco79.maven.dependency.ChecksumValidator.Algorithm;
+
+/**
+ * Drives concurrent dependency resolutions of synthetic projects, as the
+ * modules of a parallel reactor build, against a
+ * {@link FaultInjectingArtifactResolver} and reports the latency percentiles
+ * and the retries. Everything runs on local disk.
+ * <p>
+ * Each project has its own local repository and resolver, so the faults it
+ * receives do not depend on the other projects.
+ */
+class ResolverLoadHarness {
+
+    /**
+     * The outcome of the resolution of a project.
+     */
+    static class Resolution {
+        private final FaultInjectingArtifactResolver artifactResolver;
+        private final DependencyNode rootNode;
+        private final AtomicInteger retries = new AtomicInteger();
+        private long durationNanos;
+        private Throwable failure;
+
+        Resolution(FaultInjectingArtifactResolver artifactResolver, DependencyNode rootNode) {
+            this.artifactResolver = artifactResolver;
+            this.rootNode = rootNode;
+        }
+
+        FaultInjectingArtifactResolver getArtifactResolver() {
+            return artifactResolver;
+        }
+
+        DependencyNode getRootNode() {
+            return rootNode;
+        }
+
+        int getRetries() {
+            return retries.get();
+        }
+
+        long getDurationNanos() {
+            return durationNanos;
+        }
+
+        Throwable getFailure() {
+            return failure;
+        }
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    static class Report {
+        private final List<Resolution> resolutions;
+        private final long[] durations;
+
+        Report(List<Resolution> resolutions) {
+            this.resolutions = resolutions;
+            this.durations = resolutions.stream().mapToLong(Resolution::getDurationNanos).sorted().toArray();
+        }
+
+        List<Resolution> getResolutions() {
+            return resolutions;
+        }
+
+        /**
+         * Returns the duration of resolutions under which fall the given
+         * percentage of them.
+         *
+         * @param percentile
+         *            the percentile, from 0 to 100
+         * @return the duration in milliseconds
+         */
+        double getLatencyMillis(double percentile) {
+            int rank = (int) Math.ceil(percentile / 100 * durations.length);
+            return durations[Math.max(rank - 1, 0)] / 1000000d;
+        }
+
+        int getRetries() {
+            return resolutions.stream().mapToInt(Resolution::getRetries).sum();
+        }
+
+        long getFailures() {
+            return resolutions.stream().filter(r -> r.getFailure() != null).count();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("resolutions: %d, failures: %d, retries: %d, p50: %.1f ms, p99: %.1f ms", //
+                    resolutions.size(), getFailures(), getRetries(), getLatencyMillis(50), getLatencyMillis(99));
+        }
+    }
+
+    private final File workDir;
+    private final File remoteRepository;
+    private final List<Artifact> remoteArtifacts = new ArrayList<>();
+    private final long seed;
+    private int projects = 16;
+    private int threads = 4;
+    private int dependencies = 20;
+    private int maxAttempts = 3;
+    private Consumer<FaultInjectingArtifactResolver> repositoryConfigurer = r -> {
+    };
+    private Consumer<DependencyResolver> resolverConfigurer = r -> {
+    };
+
+    /**
+     * Publishes random artifacts, with their SHA-1 checksum, in a remote
+     * repository folder.
+     *
+     * @param workDir
+     *            where the repositories are created
+     * @param artifacts
+     *            the number of artifacts in the remote repository
+     * @param seed
+     *            the seed of the generated data and faults
+     * @throws IOException
+     *             in case of failure writing the remote repository
+     */
+    ResolverLoadHarness(File workDir, int artifacts, long seed) throws IOException {
+        this.workDir = workDir;
+        this.remoteRepository = new File(workDir, "remote");
+        this.seed = seed;
+
+        Random random = new Random(seed);
+        ChecksumValidator validator = new ChecksumValidator();
+        for (int i = 0; i < artifacts; i++) {
+            Artifact artifact = MavenUtils.buildArtifact("com.acme.g" + (i % 10), "a" + i, "1.0");
+            File file = new File(remoteRepository, FaultInjectingArtifactResolver.path(artifact));
+            byte[] content = new byte[1024 + random.nextInt(64 * 1024)];
+            random.nextBytes(content);
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), content);
+            String checksum = validator.digest(file, Algorithm.SHA1);
+            Files.write(new File(file.getPath() + ".sha1").toPath(), checksum.getBytes(StandardCharsets.US_ASCII));
+            remoteArtifacts.add(artifact);
+        }
+    }
+
+    /**
+     * Resolves all projects, a number of them at the same time.
+     *
+     * @return the report of the run
+     * @throws Exception
+     *             if the run is interrupted or a resolution fails with an
+     *             unexpected error
+     */
+    Report run() throws Exception {
+        List<Resolution> resolutions = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < projects; i++) {
+                File localRepository = new File(workDir, "local-" + i);
+                FaultInjectingArtifactResolver artifactResolver = new FaultInjectingArtifactResolver(remoteRepository, localRepository, seed + i);
+                repositoryConfigurer.accept(artifactResolver);
+
+                Resolution resolution = new Resolution(artifactResolver, buildGraph(i));
+                DependencyResolver resolver = buildResolver(i, resolution);
+                resolutions.add(resolution);
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        resolver.resolveDependencies(maxAttempts);
+                    } catch (Exception e) {
+                        resolution.failure = e;
+                    } finally {
+                        resolution.durationNanos = System.nanoTime() - start;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return new Report(resolutions);
+    }
+
+    private DependencyNode buildGraph(int project) {
+        List<Artifact> artifacts = new ArrayList<>(remoteArtifacts);
+        Collections.shuffle(artifacts, new Random(seed + project));
+
+        DefaultDependencyNode rootNode = buildNode(null, MavenUtils.buildArtifact("org.acme", "project" + project, "1.0"));
+        List<DefaultDependencyNode> directs = new ArrayList<>();
+        int count = Math.min(dependencies, artifacts.size());
+        for (int i = 0; i < count; i++) {
+            Artifact remote = artifacts.get(i);
+            Artifact artifact = MavenUtils.buildArtifact(remote.getGroupId(), remote.getArtifactId(), remote.getVersion());
+            // a third of the dependencies are direct, the others are transitive
+            DefaultDependencyNode parent = i < (count + 2) / 3 ? rootNode : directs.get(i % directs.size());
+            DefaultDependencyNode node = buildNode(parent, artifact);
+            parent.getChildren().add(node);
+            if (parent == rootNode) {
+                directs.add(node);
+            }
+        }
+        return rootNode;
+    }
+
+    private DefaultDependencyNode buildNode(DefaultDependencyNode parent, Artifact artifact) {
+        DefaultDependencyNode node = new DefaultDependencyNode(parent, artifact, null, null, null);
+        node.setChildren(new ArrayList<>());
+        return node;
+    }
+
+    private DependencyResolver buildResolver(int project, Resolution resolution) {
+        MavenProject mavenProject = new MavenProject();
+        mavenProject.setGroupId("org.acme");
+        mavenProject.setArtifactId("project" + project);
+        mavenProject.setVersion("1.0");
+        // mocks are stubbed here, stubbing is not thread safe
+        MavenSession session = mock(MavenSession.class);
+        when(session.getCurrentProject()).thenReturn(mavenProject);
+        when(session.getProjectBuildingRequest()).thenReturn(new DefaultProjectBuildingRequest());
+
+        DependencyResolver resolver = new DependencyResolver(session, mavenProject, (request, filter) -> resolution.getRootNode(), new TypeFiler("jar"),
+                mock(Log.class), resolution.getArtifactResolver());
+        resolver.setListener(new DependencyResolverListener() {
+            @Override
+            public void retry(int attempt, EmptyArtifactException failure) {
+                resolution.retries.incrementAndGet();
+            }
+        });
+        resolverConfigurer.accept(resolver);
+        return resolver;
+    }
+
+    void setProjects(int projects) {
+        this.projects = projects;
+    }
+
+    void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    void setDependencies(int dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Set how to configure latency and faults of the resolver of each
+     * project.
+     *
+     * @param repositoryConfigurer
+     *            the configurer of the fake resolvers
+     */
+    void setRepositoryConfigurer(Consumer<FaultInjectingArtifactResolver> repositoryConfigurer) {
+        this.repositoryConfigurer = repositoryConfigurer;
+    }
+
+    /**
+     * Set how to configure the dependency resolver of each project.
+     *
+     * @param resolverConfigurer
+     *            the configurer of the dependency resolvers
+     */
+    void setResolverConfigurer(Consumer<DependencyResolver> resolverConfigurer) {
+        this.resolverConfigurer = resolverConfigurer;
+    }
+
+}
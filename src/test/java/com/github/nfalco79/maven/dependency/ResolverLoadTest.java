@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.DependencyGraphBuilderException;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.nfalco79.maven.dependency.FaultInjectingArtifactResolver.Fault;
+import com.github.nfalco79.maven.dependency.ResolverLoadHarness.Report;
+import com.github.nfalco79.maven.dependency.ResolverLoadHarness.Resolution;
+import com.github.nfalco79.maven.dependency.graph.BottomUpDependencyVisitor;
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphWalker;
+
+public class ResolverLoadTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void broken_downloads_are_resolved_again() throws Exception {
+        File workDir = fileRule.newFolder();
+        ResolverLoadHarness harness = new ResolverLoadHarness(workDir, 60, 42);
+        harness.setProjects(12);
+        harness.setThreads(4);
+        harness.setDependencies(20);
+        harness.setRepositoryConfigurer(repository -> {
+            repository.setLatency(FaultInjectingArtifactResolver.logNormalLatency(2, 0.8));
+            repository.setEmptyRate(0.05);
+            repository.setTruncatedRate(0.05);
+        });
+        harness.setResolverConfigurer(resolver -> {
+            resolver.setResolverThreads(4);
+            resolver.setCollectAllFailures(true);
+            resolver.setVerifyChecksums(true);
+        });
+
+        Report report = harness.run();
+
+        Assertions.assertThat(report.getFailures()).as(report.toString()).isZero();
+        Assertions.assertThat(report.getRetries()).isPositive();
+        for (Resolution resolution : report.getResolutions()) {
+            FaultInjectingArtifactResolver repository = resolution.getArtifactResolver();
+            boolean broken = repository.getFaults(Fault.EMPTY) + repository.getFaults(Fault.TRUNCATED) > 0;
+            // all broken files are collected in the first attempt
+            Assertions.assertThat(resolution.getRetries()).isEqualTo(broken ? 1 : 0);
+
+            BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
+            DependencyGraphWalker.walk(resolution.getRootNode(), visitor);
+            for (Artifact artifact : visitor.getNodes()) {
+                if (artifact != resolution.getRootNode().getArtifact()) {
+                    File remoteFile = new File(workDir, "remote/" + FaultInjectingArtifactResolver.path(artifact));
+                    Assertions.assertThat(artifact.getFile()).hasBinaryContent(Files.readAllBytes(remoteFile.toPath()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void repository_errors_are_not_retried() throws Exception {
+        ResolverLoadHarness harness = new ResolverLoadHarness(fileRule.newFolder(), 60, 7);
+        harness.setRepositoryConfigurer(repository -> {
+            repository.setLatency(FaultInjectingArtifactResolver.fixedLatency(1));
+            repository.setErrorRate(0.02);
+        });
+        harness.setResolverConfigurer(resolver -> resolver.setResolverThreads(4));
+
+        Report report = harness.run();
+
+        Assertions.assertThat(report.getFailures()).as(report.toString()).isPositive();
+        Assertions.assertThat(report.getRetries()).isZero();
+        for (Resolution resolution : report.getResolutions()) {
+            if (resolution.getArtifactResolver().getFaults(Fault.ERROR) > 0) {
+                Assertions.assertThat(resolution.getFailure()) //
+                        .isInstanceOf(DependencyGraphBuilderException.class) //
+                        .hasMessageStartingWith("can not resolve artifact");
+            } else {
+                Assertions.assertThat(resolution.getFailure()).isNull();
+            }
+        }
+    }
+
+}
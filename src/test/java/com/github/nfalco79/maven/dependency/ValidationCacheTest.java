@@ -0,0 +1,121 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ValidationCacheTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    @Test
+    public void test_changed_file_is_not_validated() throws Exception {
+        File indexFile = new File(fileRule.getRoot(), "validation.idx");
+        File jar = fileRule.newFile("a-1.0.jar");
+        FileUtils.writeStringToFile(jar, "content", StandardCharsets.UTF_8);
+
+        ValidationCache cache = new ValidationCache(indexFile, 10);
+        cache.load();
+        Assertions.assertThat(cache.isValidated(jar, "sha1:abc")).isFalse();
+        cache.validated(jar, "sha1:abc");
+        cache.save();
+
+        ValidationCache other = new ValidationCache(indexFile, 10);
+        other.load();
+        Assertions.assertThat(other.isValidated(jar, "sha1:abc")).isTrue();
+
+        FileUtils.writeStringToFile(jar, "truncated", StandardCharsets.UTF_8);
+        Assertions.assertThat(other.isValidated(jar, "sha1:abc")).isFalse();
+    }
+
+    @Test
+    public void test_concurrent_updates_are_merged_and_evicted() throws Exception {
+        File indexFile = new File(fileRule.getRoot(), "validation.idx");
+        File jar1 = fileRule.newFile("a-1.0.jar");
+        File jar2 = fileRule.newFile("b-1.0.jar");
+        File jar3 = fileRule.newFile("c-1.0.jar");
+
+        ValidationCache cache1 = new ValidationCache(indexFile, 2);
+        cache1.load();
+        ValidationCache cache2 = new ValidationCache(indexFile, 2);
+        cache2.load();
+
+        cache1.validated(jar1, "sha1:a");
+        cache1.save();
+        Thread.sleep(5);
+        cache2.validated(jar2, "sha1:b");
+        cache2.save();
+
+        ValidationCache cache = new ValidationCache(indexFile, 2);
+        cache.load();
+        Assertions.assertThat(cache.isValidated(jar1, "sha1:a")).isTrue();
+        Assertions.assertThat(cache.isValidated(jar2, "sha1:b")).isTrue();
+
+        Thread.sleep(5);
+        cache.validated(jar3, "sha1:c");
+        cache.save();
+        cache.load();
+        Assertions.assertThat(cache.isValidated(jar1, "sha1:a")).isFalse();
+        Assertions.assertThat(cache.isValidated(jar2, "sha1:b")).isTrue();
+        Assertions.assertThat(cache.isValidated(jar3, "sha1:c")).isTrue();
+    }
+
+    @Test
+    public void test_changed_checksum_is_not_validated() throws Exception {
+        File indexFile = new File(fileRule.getRoot(), "validation.idx");
+        File jar = fileRule.newFile("a-1.0.jar");
+
+        ValidationCache cache = new ValidationCache(indexFile, 10);
+        cache.validated(jar, "sha1:abc");
+        Assertions.assertThat(cache.isValidated(jar, "sha1:ABC")).isTrue();
+        Assertions.assertThat(cache.isValidated(jar, "sha1:abd")).isFalse();
+        Assertions.assertThat(cache.isValidated(jar, "sha256:abc")).isFalse();
+    }
+
+    @Test
+    public void test_evict_least_recently_used() throws Exception {
+        File indexFile = new File(fileRule.getRoot(), "validation.idx");
+        File jar1 = fileRule.newFile("a-1.0.jar");
+        File jar2 = fileRule.newFile("b-1.0.jar");
+        File jar3 = fileRule.newFile("c-1.0.jar");
+
+        ValidationCache cache = new ValidationCache(indexFile, 2, 0);
+        cache.validated(jar1, "sha1:a");
+        Thread.sleep(5);
+        cache.validated(jar2, "sha1:b");
+        cache.save();
+
+        // the first validated is the last used
+        Thread.sleep(5);
+        Assertions.assertThat(cache.isValidated(jar1, "sha1:a")).isTrue();
+        Thread.sleep(5);
+        cache.validated(jar3, "sha1:c");
+        cache.save();
+        cache.load();
+        Assertions.assertThat(cache.isValidated(jar1, "sha1:a")).isTrue();
+        Assertions.assertThat(cache.isValidated(jar2, "sha1:b")).isFalse();
+        Assertions.assertThat(cache.isValidated(jar3, "sha1:c")).isTrue();
+    }
+
+}
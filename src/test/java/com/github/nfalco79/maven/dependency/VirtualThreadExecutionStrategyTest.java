@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the Java 21 version of {@link VirtualThreadExecutionStrategy}. The
+ * java21 profile gives the folder of compiled classes, they are packaged in a
+ * multi-release jar so that the JVM loads the classes of META-INF/versions.
+ */
+public class VirtualThreadExecutionStrategyTest {
+
+    @Rule
+    public TemporaryFolder fileRule = new TemporaryFolder();
+
+    private URLClassLoader classLoader;
+    private Class<?> strategyClass;
+
+    @Before
+    public void loadMultiReleaseJar() throws Exception {
+        String classes = System.getProperty("multirelease.classes");
+        Assume.assumeTrue("runs only in the java21 profile", classes != null);
+
+        File jar = fileRule.newFile("classes.jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Multi-Release", "true");
+        Path root = Paths.get(classes);
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar), manifest); Stream<Path> files = Files.walk(root)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                jos.putNextEntry(new JarEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, jos);
+                jos.closeEntry();
+            }
+        }
+
+        // no parent, the test classpath must not hide the classes of the jar
+        classLoader = new URLClassLoader(new URL[] { jar.toURI().toURL() }, null);
+        strategyClass = classLoader.loadClass(VirtualThreadExecutionStrategy.class.getName());
+    }
+
+    @After
+    public void closeClassLoader() throws Exception {
+        if (classLoader != null) {
+            classLoader.close();
+        }
+    }
+
+    @Test
+    public void virtual_threads_are_supported() throws Exception {
+        Assertions.assertThat(strategyClass.getMethod("isSupported").invoke(null)).isEqualTo(true);
+    }
+
+    @Test
+    public void run_tasks_in_virtual_threads_bounded_by_parallelism() throws Exception {
+        ExecutorService executor = newExecutor(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<Object>> tasks = new ArrayList<>();
+        try {
+            for (int i = 0; i < 20; i++) {
+                tasks.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    return Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+                }));
+            }
+            for (Future<Object> task : tasks) {
+                Assertions.assertThat(task.get(10, TimeUnit.SECONDS)).isEqualTo(true);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertThat(maxRunning.get()).isBetween(1, 2);
+    }
+
+    @Test
+    public void shutdown_now_cancels_waiting_tasks() throws Exception {
+        ExecutorService executor = newExecutor(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> running = executor.submit(() -> {
+            started.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return null;
+        });
+        Future<?> waiting = executor.submit(() -> null);
+        Assertions.assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        executor.shutdownNow();
+        Assertions.assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(running.isDone()).isTrue();
+        Assertions.assertThat(waiting.isCancelled()).isTrue();
+    }
+
+    private ExecutorService newExecutor(int parallelism) throws Exception {
+        Object strategy = strategyClass.getConstructor().newInstance();
+        return (ExecutorService) strategyClass.getMethod("newExecutor", int.class).invoke(strategy, parallelism);
+    }
+
+}
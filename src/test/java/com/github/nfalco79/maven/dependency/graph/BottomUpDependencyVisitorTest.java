@@ -15,9 +15,18 @@
  */
 package com.github.nfalco79.maven.dependency.graph;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
 import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
@@ -43,4 +52,103 @@ public class BottomUpDependencyVisitorTest {
         Assertions.assertThat(visitor.getNodes()).contains(leaf2.getArtifact()).doesNotContain(leaf1.getArtifact());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void verify_highest_version_and_order_with_many_artifacts() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g1", "root", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            String artifactId = "a" + random.nextInt(700);
+            int version = random.nextInt(20);
+            DefaultDependencyNode child = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g1", artifactId, "1." + version), null, null, null);
+            child.setChildren(Collections.emptyList());
+            children.add(child);
+            expected.merge(artifactId, version, Math::max);
+        }
+        root.setChildren(children);
+        expected.put("root", 0);
+
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor(4);
+        root.accept(visitor);
+        Assertions.assertThat(visitor.getNodes()) //
+                .extracting(a -> a.getArtifactId() + ":" + a.getVersion()) //
+                .containsExactlyElementsOf(expected.entrySet().stream() //
+                        .map(e -> e.getKey() + ":1." + e.getValue()) //
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void skip_already_visited_subtrees() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g1", "root", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g1", "child" + i, "1.0"), null, null, null);
+            // same library reached from each path
+            DefaultDependencyNode library = new DefaultDependencyNode(child, MavenUtils.buildArtifact("g2", "library", "1.0"), null, null, null);
+            DefaultDependencyNode transitive = new DefaultDependencyNode(library, MavenUtils.buildArtifact("g2", "transitive", "1.0"), null, null, null);
+            transitive.setChildren(Collections.emptyList());
+            library.setChildren(Arrays.asList(transitive));
+            child.setChildren(Arrays.asList(library));
+            children.add(child);
+        }
+        // a different context expands the library again
+        DefaultDependencyNode excluding = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g1", "excluding", "1.0"), null, null, null, false,
+                Arrays.asList(exclusion("g3", "other")));
+        DefaultDependencyNode library = new DefaultDependencyNode(excluding, MavenUtils.buildArtifact("g2", "library", "1.0"), null, null, null);
+        library.setChildren(Collections.emptyList());
+        excluding.setChildren(Arrays.asList(library));
+        children.add(excluding);
+        root.setChildren(children);
+
+        BottomUpDependencyVisitor fullVisitor = new BottomUpDependencyVisitor();
+        root.accept(fullVisitor);
+
+        AtomicInteger visits = new AtomicInteger();
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor() {
+            @Override
+            public boolean visit(DependencyNode node) {
+                visits.incrementAndGet();
+                return super.visit(node);
+            }
+        };
+        visitor.setSkipVisitedSubtrees(true);
+        root.accept(visitor);
+
+        Assertions.assertThat(visitor.getNodes()).containsExactlyElementsOf(fullVisitor.getNodes());
+        // transitive of the second and third library are not visited
+        Assertions.assertThat(visits.get()).isEqualTo(1 + 3 * 3 - 2 + 2);
+    }
+
+    @Test
+    public void expand_visited_subtree_of_another_version() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g1", "root", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g1", "child" + i, "1.0"), null, null, null);
+            DefaultDependencyNode library = new DefaultDependencyNode(child, MavenUtils.buildArtifact("g2", "library", "1." + i), null, null, null);
+            DefaultDependencyNode transitive = new DefaultDependencyNode(library, MavenUtils.buildArtifact("g2", "transitive" + i, "1.0"), null, null, null);
+            transitive.setChildren(Collections.emptyList());
+            library.setChildren(Arrays.asList(transitive));
+            child.setChildren(Arrays.asList(library));
+            children.add(child);
+        }
+        root.setChildren(children);
+
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
+        visitor.setSkipVisitedSubtrees(true);
+        root.accept(visitor);
+
+        Assertions.assertThat(visitor.getNodes()) //
+                .extracting(a -> a.getArtifactId() + ":" + a.getVersion()) //
+                .containsExactly("transitive0:1.0", "library:1.1", "child0:1.0", "transitive1:1.0", "child1:1.0", "root:1.0");
+    }
+
+    private Exclusion exclusion(String groupId, String artifactId) {
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId(groupId);
+        exclusion.setArtifactId(artifactId);
+        return exclusion;
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.DependencyGraphTransformer;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.junit.Test;
+
+import com.github.nfalco79.maven.dependency.graph.DependencyGraphSession.Mode;
+
+public class DependencyGraphSessionTest {
+
+    @Test
+    public void test_modes() {
+        DefaultRepositorySystemSession repositorySession = new DefaultRepositorySystemSession();
+
+        DependencyGraphSession session = new DependencyGraphSession(repositorySession);
+        Assertions.assertThat(session.getDependencyGraphTransformer()).isNull();
+        Assertions.assertThat(session.getConfigProperties()).doesNotContainKey(ConflictResolver.CONFIG_PROP_VERBOSE);
+
+        session = new DependencyGraphSession(repositorySession, Mode.CONFLICT_MARKED);
+        Assertions.assertThat(session.getDependencyGraphTransformer()).isNotNull();
+        Assertions.assertThat(session.getConfigProperties()).containsEntry(ConflictResolver.CONFIG_PROP_VERBOSE, Boolean.TRUE);
+        Assertions.assertThat(repositorySession.getConfigProperties()).doesNotContainKey(ConflictResolver.CONFIG_PROP_VERBOSE);
+    }
+
+    @Test
+    public void test_limits_on_expanded_tree() throws Exception {
+        // each level shares the two nodes of next level, the tree has 2^41 - 1 nodes
+        DefaultDependencyNode root = new DefaultDependencyNode(new DefaultArtifact("g:root:1.0"));
+        DefaultDependencyNode[] level = { root };
+        for (int depth = 1; depth <= 40; depth++) {
+            DefaultDependencyNode left = new DefaultDependencyNode(new DefaultArtifact("g:l" + depth + ":1.0"));
+            DefaultDependencyNode right = new DefaultDependencyNode(new DefaultArtifact("g:r" + depth + ":1.0"));
+            for (DefaultDependencyNode node : level) {
+                node.setChildren(Arrays.asList(left, right));
+            }
+            level = new DefaultDependencyNode[] { left, right };
+        }
+
+        DependencyGraphSession session = new DependencyGraphSession(new DefaultRepositorySystemSession());
+        session.setMaxDepth(41);
+        DependencyGraphTransformer transformer = session.getDependencyGraphTransformer();
+        Assertions.assertThat(transformer.transformGraph(root, null)).isSameAs(root);
+
+        session.setMaxDepth(20);
+        DependencyGraphTransformer depthLimit = session.getDependencyGraphTransformer();
+        Assertions.assertThatThrownBy(() -> depthLimit.transformGraph(root, null)) //
+                .isInstanceOf(RepositoryException.class) //
+                .hasMessageContaining("deeper than the maximum of 20");
+
+        session.setMaxDepth(0);
+        session.setMaxNodes(1000000);
+        DependencyGraphTransformer nodesLimit = session.getDependencyGraphTransformer();
+        Assertions.assertThatThrownBy(() -> nodesLimit.transformGraph(root, null)) //
+                .isInstanceOf(RepositoryException.class) //
+                .hasMessageContaining("more than 1000000 nodes");
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.apache.maven.shared.dependency.graph.traversal.DependencyNodeVisitor;
+import org.assertj.core.api.Assertions;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DependencyVisitor;
+import org.junit.Test;
+
+import com.github.nfalco79.maven.MavenUtils;
+
+public class DependencyGraphWalkerTest {
+
+    private static class RecordingVisitor implements DependencyNodeVisitor, DependencyVisitor {
+        private final List<String> events = new ArrayList<>();
+        private final String stopAt;
+
+        RecordingVisitor(String stopAt) {
+            this.stopAt = stopAt;
+        }
+
+        @Override
+        public boolean visit(DependencyNode node) {
+            events.add("visit " + node.getArtifact().getArtifactId());
+            return !node.getArtifact().getArtifactId().equals(stopAt);
+        }
+
+        @Override
+        public boolean endVisit(DependencyNode node) {
+            events.add("endVisit " + node.getArtifact().getArtifactId());
+            return !node.getArtifact().getArtifactId().equals(stopAt);
+        }
+
+        @Override
+        public boolean visitEnter(org.eclipse.aether.graph.DependencyNode node) {
+            events.add("visit " + node.getArtifact().getArtifactId());
+            return !node.getArtifact().getArtifactId().equals(stopAt);
+        }
+
+        @Override
+        public boolean visitLeave(org.eclipse.aether.graph.DependencyNode node) {
+            events.add("endVisit " + node.getArtifact().getArtifactId());
+            return !node.getArtifact().getArtifactId().equals(stopAt);
+        }
+    }
+
+    @Test
+    public void same_events_of_recursive_accept() {
+        Random random = new Random(3);
+        DefaultDependencyNode root = randomTree(random, 500);
+        org.eclipse.aether.graph.DefaultDependencyNode aetherRoot = randomAetherTree(random, 500);
+
+        for (String stopAt : new String[] { null, "a17", "a250" }) {
+            RecordingVisitor expected = new RecordingVisitor(stopAt);
+            boolean expectedResult = root.accept(expected);
+            RecordingVisitor actual = new RecordingVisitor(stopAt);
+            Assertions.assertThat(DependencyGraphWalker.walk(root, actual)).isEqualTo(expectedResult);
+            Assertions.assertThat(actual.events).containsExactlyElementsOf(expected.events);
+
+            expected = new RecordingVisitor(stopAt);
+            expectedResult = aetherRoot.accept(expected);
+            actual = new RecordingVisitor(stopAt);
+            Assertions.assertThat(DependencyGraphWalker.walk(aetherRoot, actual)).isEqualTo(expectedResult);
+            Assertions.assertThat(actual.events).containsExactlyElementsOf(expected.events);
+        }
+    }
+
+    @Test
+    public void walk_very_deep_graph() {
+        int depth = 100000;
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g", "a0", "1.0"), null, null, null);
+        DefaultDependencyNode parent = root;
+        for (int i = 1; i < depth; i++) {
+            DefaultDependencyNode node = new DefaultDependencyNode(parent, MavenUtils.buildArtifact("g", "a" + i, "1.0"), null, null, null);
+            parent.setChildren(Collections.singletonList(node));
+            parent = node;
+        }
+        parent.setChildren(Collections.emptyList());
+
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
+        DependencyGraphWalker.walk(root, visitor);
+        Assertions.assertThat(visitor.getNodes()).hasSize(depth);
+        Assertions.assertThat(visitor.getNodes().iterator().next().getArtifactId()).isEqualTo("a" + (depth - 1));
+    }
+
+    @Test
+    public void count_nodes_up_to_limit() {
+        DefaultDependencyNode root = randomTree(new Random(3), 500);
+
+        Assertions.assertThat(DependencyGraphWalker.count(root, Integer.MAX_VALUE)).isEqualTo(500);
+        Assertions.assertThat(DependencyGraphWalker.count(root, 100)).isBetween(100, 500);
+    }
+
+    private DefaultDependencyNode randomTree(Random random, int size) {
+        List<DefaultDependencyNode> nodes = new ArrayList<>();
+        List<List<DependencyNode>> children = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            DefaultDependencyNode parent = i == 0 ? null : nodes.get(random.nextInt(i));
+            DefaultDependencyNode node = new DefaultDependencyNode(parent, MavenUtils.buildArtifact("g", "a" + i, "1.0"), null, null, null);
+            nodes.add(node);
+            children.add(new ArrayList<>());
+            if (parent != null) {
+                children.get(nodes.indexOf(parent)).add(node);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            nodes.get(i).setChildren(children.get(i));
+        }
+        return nodes.get(0);
+    }
+
+    private org.eclipse.aether.graph.DefaultDependencyNode randomAetherTree(Random random, int size) {
+        List<org.eclipse.aether.graph.DefaultDependencyNode> nodes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            org.eclipse.aether.graph.DefaultDependencyNode node = new org.eclipse.aether.graph.DefaultDependencyNode(new DefaultArtifact("g", "a" + i, "jar", "1.0"));
+            if (i > 0) {
+                nodes.get(random.nextInt(i)).getChildren().add(node);
+            }
+            nodes.add(node);
+        }
+        return nodes.get(0);
+    }
+
+}
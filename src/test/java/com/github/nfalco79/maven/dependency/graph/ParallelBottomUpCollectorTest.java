@@ -0,0 +1,251 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.nfalco79.maven.MavenUtils;
+
+public class ParallelBottomUpCollectorTest {
+
+    @Test
+    public void same_result_of_sequential_visitor() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < 3; seed++) {
+                DefaultDependencyNode root = new RandomGraph(new Random(seed), 200).expand(20000);
+
+                for (boolean skipVisitedSubtrees : new boolean[] { false, true }) {
+                    BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
+                    visitor.setSkipVisitedSubtrees(skipVisitedSubtrees);
+                    root.accept(visitor);
+
+                    for (int threshold : new int[] { 10, 1000, 100000 }) {
+                        ParallelBottomUpCollector collector = new ParallelBottomUpCollector(pool, threshold);
+                        collector.setSkipVisitedSubtrees(skipVisitedSubtrees);
+                        Assertions.assertThat(collector.collect(root)) //
+                                .containsExactlyElementsOf(visitor.getNodes());
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void deep_graph_with_siblings() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g", "a0", "1.0"), null, null, null);
+        DefaultDependencyNode parent = root;
+        for (int i = 1; i < 50000; i++) {
+            DefaultDependencyNode leaf = new DefaultDependencyNode(parent, MavenUtils.buildArtifact("g", "leaf" + (i % 100), "1." + (i % 13)), null, null, null);
+            leaf.setChildren(Collections.emptyList());
+            DefaultDependencyNode node = new DefaultDependencyNode(parent, MavenUtils.buildArtifact("g", "a" + (i % 1000), "1." + (i % 7)), null, null, null);
+            parent.setChildren(i % 2 == 0 ? Arrays.asList(leaf, node) : Arrays.asList(node, leaf));
+            parent = node;
+        }
+        parent.setChildren(Collections.emptyList());
+
+        BottomUpDependencyVisitor visitor = new BottomUpDependencyVisitor();
+        DependencyGraphWalker.walk(root, visitor);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Assertions.assertThat(new ParallelBottomUpCollector(pool, 100).collect(root)) //
+                    .containsExactlyElementsOf(visitor.getNodes());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void skip_visited_subtrees_of_the_same_exclusions() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g1", "root", "1.0"), null, null, null);
+        Exclusion exclusion = new Exclusion();
+        exclusion.setGroupId("g2");
+        exclusion.setArtifactId("transitive");
+        DefaultDependencyNode excluding = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g1", "excluding", "1.0"), null, null, null, false,
+                Arrays.asList(exclusion));
+        // a large subtree, the library after it is merged with the one of the root
+        DefaultDependencyNode parent = excluding;
+        List<DependencyNode> chain = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            DefaultDependencyNode node = new DefaultDependencyNode(parent, MavenUtils.buildArtifact("g3", "a" + i, "1.0"), null, null, null);
+            node.setChildren(Collections.emptyList());
+            chain.add(node);
+            if (parent != excluding) {
+                parent.setChildren(Arrays.asList(node));
+            }
+            parent = node;
+        }
+        DefaultDependencyNode excludedLibrary = new DefaultDependencyNode(excluding, MavenUtils.buildArtifact("g2", "library", "1.0"), null, null, null);
+        excludedLibrary.setChildren(Collections.emptyList());
+        excluding.setChildren(Arrays.asList(chain.get(0), excludedLibrary));
+
+        DefaultDependencyNode library = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g2", "library", "1.0"), null, null, null);
+        DefaultDependencyNode transitive = new DefaultDependencyNode(library, MavenUtils.buildArtifact("g2", "transitive", "1.0"), null, null, null);
+        transitive.setChildren(Collections.emptyList());
+        library.setChildren(Arrays.asList(transitive));
+        root.setChildren(Arrays.asList(excluding, library));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelBottomUpCollector collector = new ParallelBottomUpCollector(pool, 100);
+            collector.setSkipVisitedSubtrees(true);
+            Assertions.assertThat(collector.collect(root)) //
+                    .extracting(Artifact::getArtifactId) //
+                    .endsWith("library", "excluding", "transitive", "root");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void fall_back_to_sequential_visitor() {
+        // the same library with different children, a skipping visitor does
+        // not collect the children of the second one
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g1", "root", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            DefaultDependencyNode library = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g2", "library", "1.0"), null, null, null);
+            DefaultDependencyNode transitive = new DefaultDependencyNode(library, MavenUtils.buildArtifact("g2", "transitive" + i, "1.0"), null, null, null);
+            transitive.setChildren(Collections.emptyList());
+            library.setChildren(Arrays.asList(transitive));
+            children.add(library);
+        }
+        root.setChildren(children);
+
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (ParallelBottomUpCollector collector : Arrays.asList(new ParallelBottomUpCollector(singleThreadPool, 1),
+                    new ParallelBottomUpCollector(pool, 100))) {
+                Assertions.assertThat(collector.collect(root)) //
+                        .extracting(Artifact::getArtifactId) //
+                        .containsExactly("transitive0", "library", "transitive1", "root");
+
+                collector.setSkipVisitedSubtrees(true);
+                Assertions.assertThat(collector.collect(root)) //
+                        .extracting(Artifact::getArtifactId) //
+                        .containsExactly("transitive0", "library", "root");
+            }
+        } finally {
+            singleThreadPool.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Libraries with dependencies on other libraries, expanded in a tree with
+     * the same children for the same library and inherited exclusions, as
+     * Maven does.
+     */
+    private static class RandomGraph {
+        private final Random random;
+        private final List<List<Dependency>> dependencies = new ArrayList<>();
+        private final long[] sizes;
+
+        RandomGraph(Random random, int libraries) {
+            this.random = random;
+            this.sizes = new long[libraries];
+            for (int i = 0; i < libraries; i++) {
+                dependencies.add(new ArrayList<>());
+            }
+            for (int i = libraries - 1; i >= 0; i--) {
+                sizes[i] = 1;
+                int count = Math.min(libraries - i - 1, random.nextInt(4));
+                for (int d = 0; d < count; d++) {
+                    int library = i + 1 + random.nextInt(Math.min(libraries - i - 1, 20));
+                    // exclude a transitive library that could be in the subtree
+                    List<Exclusion> exclusions = random.nextInt(3) == 0 ? Arrays.asList(exclusion(Math.min(libraries - 1, library + 1 + random.nextInt(40))))
+                            : Collections.<Exclusion> emptyList();
+                    dependencies.get(i).add(new Dependency(library, exclusions));
+                    sizes[i] += sizes[library];
+                }
+            }
+        }
+
+        DefaultDependencyNode expand(int size) {
+            DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g", "root", "1.0"), null, null, null);
+            List<DependencyNode> children = new ArrayList<>();
+            long total = 0;
+            while (total < size) {
+                int library = random.nextInt(sizes.length);
+                if (sizes[library] <= size / 10) {
+                    children.add(expand(root, library, Collections.<Exclusion> emptyList(), Collections.<String> emptySet()));
+                    total += sizes[library];
+                }
+            }
+            root.setChildren(children);
+            return root;
+        }
+
+        private DefaultDependencyNode expand(DependencyNode parent, int library, List<Exclusion> nodeExclusions, Set<String> inheritedExclusions) {
+            DefaultDependencyNode node = new DefaultDependencyNode(parent, artifact(library), null, null, null, false, nodeExclusions);
+            Set<String> childExclusions = new HashSet<>(inheritedExclusions);
+            for (Exclusion exclusion : nodeExclusions) {
+                childExclusions.add(exclusion.getGroupId() + ':' + exclusion.getArtifactId());
+            }
+            List<DependencyNode> children = new ArrayList<>();
+            for (Dependency dependency : dependencies.get(library)) {
+                Artifact artifact = artifact(dependency.library);
+                if (!childExclusions.contains(artifact.getGroupId() + ':' + artifact.getArtifactId())) {
+                    children.add(expand(node, dependency.library, dependency.exclusions, childExclusions));
+                }
+            }
+            node.setChildren(children);
+            return node;
+        }
+
+        private Artifact artifact(int library) {
+            // same groupId:artifactId in different versions
+            return MavenUtils.buildArtifact("g" + library % 3, "a" + library % 60, "1." + library);
+        }
+
+        private Exclusion exclusion(int library) {
+            Artifact artifact = artifact(library);
+            Exclusion exclusion = new Exclusion();
+            exclusion.setGroupId(artifact.getGroupId());
+            exclusion.setArtifactId(artifact.getArtifactId());
+            return exclusion;
+        }
+    }
+
+    private static class Dependency {
+        private final int library;
+        private final List<Exclusion> exclusions;
+
+        Dependency(int library, List<Exclusion> exclusions) {
+            this.library = library;
+            this.exclusions = exclusions;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 Falco Nikolas
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.github.nfalco79.maven.dependency.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.apache.maven.shared.dependency.graph.internal.DefaultDependencyNode;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.github.nfalco79.maven.MavenUtils;
+
+public class StreamingBottomUpDependencyVisitorTest {
+
+    @Test
+    public void push_each_artifact_once_with_final_version() {
+        Random random = new Random(11);
+        List<DefaultDependencyNode> nodes = new ArrayList<>();
+        List<List<DependencyNode>> children = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            DefaultDependencyNode parent = i == 0 ? null : nodes.get(random.nextInt(i));
+            String artifactId = i == 0 ? "root" : "a" + random.nextInt(300);
+            DefaultDependencyNode node = new DefaultDependencyNode(parent, MavenUtils.buildArtifact("g1", artifactId, "1." + random.nextInt(10)), null, null, null);
+            nodes.add(node);
+            children.add(new ArrayList<>());
+            if (parent != null) {
+                children.get(nodes.indexOf(parent)).add(node);
+            }
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.get(i).setChildren(children.get(i));
+        }
+
+        List<Artifact> pushed = new ArrayList<>();
+        StreamingBottomUpDependencyVisitor visitor = new StreamingBottomUpDependencyVisitor(pushed::add);
+        visitor.walk(nodes.get(0));
+
+        BottomUpDependencyVisitor expected = new BottomUpDependencyVisitor();
+        nodes.get(0).accept(expected);
+        Assertions.assertThat(visitor.getNodes()).containsExactlyElementsOf(expected.getNodes());
+        Assertions.assertThat(pushed).containsExactlyInAnyOrderElementsOf(expected.getNodes());
+    }
+
+    @Test
+    public void push_leaf_before_end_of_visit() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g1", "root", "1.0"), null, null, null);
+        DefaultDependencyNode leaf = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g1", "leaf", "1.0"), null, null, null);
+        leaf.setChildren(Collections.emptyList());
+        root.setChildren(Collections.singletonList(leaf));
+
+        List<Artifact> pushed = new ArrayList<>();
+        StreamingBottomUpDependencyVisitor visitor = new StreamingBottomUpDependencyVisitor(pushed::add);
+        visitor.walk(root);
+        Assertions.assertThat(pushed).containsExactly(leaf.getArtifact(), root.getArtifact());
+    }
+
+    @Test
+    public void push_each_artifact_of_skipped_subtrees_once() {
+        DefaultDependencyNode root = new DefaultDependencyNode(null, MavenUtils.buildArtifact("g1", "root", "1.0"), null, null, null);
+        List<DependencyNode> children = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DefaultDependencyNode child = new DefaultDependencyNode(root, MavenUtils.buildArtifact("g1", "child" + i, "1.0"), null, null, null);
+            DefaultDependencyNode library = new DefaultDependencyNode(child, MavenUtils.buildArtifact("g2", "library", "1.0"), null, null, null);
+            DefaultDependencyNode transitive = new DefaultDependencyNode(library, MavenUtils.buildArtifact("g2", "transitive", "1." + i), null, null, null);
+            transitive.setChildren(Collections.emptyList());
+            library.setChildren(Collections.singletonList(transitive));
+            child.setChildren(Collections.singletonList(library));
+            children.add(child);
+        }
+        root.setChildren(children);
+
+        List<Artifact> pushed = new ArrayList<>();
+        StreamingBottomUpDependencyVisitor visitor = new StreamingBottomUpDependencyVisitor(pushed::add, 1);
+        visitor.setSkipVisitedSubtrees(true);
+        visitor.walk(root);
+
+        // the same subtrees are skipped when occurrences are counted, the
+        // transitive of the first library is pushed
+        Assertions.assertThat(pushed) //
+                .extracting(a -> a.getArtifactId() + ":" + a.getVersion()) //
+                .containsExactly("transitive:1.0", "child0:1.0", "child1:1.0", "library:1.0", "child2:1.0", "root:1.0");
+        Assertions.assertThat(visitor.getNodes()).containsExactlyInAnyOrderElementsOf(pushed);
+    }
+
+}